@@ -0,0 +1,85 @@
+package com.example.security.authz;
+
+import com.example.security.controller.AdminController;
+import com.example.security.controller.ModeratorController;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.entity.Role;
+import com.example.security.service.UserService;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * JMH benchmark for @PreAuthorize decisions: Spring's SpEL-based manager against the compiled
+ * role-mask manager, for a single class-level hasAnyRole check and for the nested
+ * AdminController -> UserService pair of hasRole('ADMIN') checks within one request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PreAuthorizeBenchmark {
+
+    @Param({"spel", "compiled"})
+    public String manager;
+
+    private AuthorizationManager<MethodInvocation> authorizationManager;
+    private Supplier<Authentication> authentication;
+    private MethodInvocation moderatorDashboard;
+    private MethodInvocation adminGetAllUsers;
+    private MethodInvocation serviceGetAllUsers;
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        authorizationManager = "compiled".equals(manager)
+                ? new CompiledPreAuthorizeAuthorizationManager()
+                : new PreAuthorizeAuthorizationManager();
+
+        // the same Authentication the JWT filter builds for an admin
+        UserPrincipal principal = new UserPrincipal("admin", "",
+                Role.USER.getMask() | Role.ADMIN.getMask(), UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_LOCKED);
+        Authentication token = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authentication = () -> token;
+
+        moderatorDashboard = new SimpleMethodInvocation(new ModeratorController(),
+                ModeratorController.class.getMethod("getModeratorDashboard"));
+        adminGetAllUsers = new SimpleMethodInvocation(new AdminController(),
+                AdminController.class.getMethod("getAllUsers"));
+        serviceGetAllUsers = new SimpleMethodInvocation(new UserService(),
+                UserService.class.getMethod("getAllUsers"));
+
+        request = new MockHttpServletRequest("GET", "/admin/users");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public boolean singleCheck() {
+        request.clearAttributes(); // a new request each time
+        return authorizationManager.check(authentication, moderatorDashboard).isGranted();
+    }
+
+    @Benchmark
+    public boolean nestedChecks() {
+        request.clearAttributes();
+        return authorizationManager.check(authentication, adminGetAllUsers).isGranted()
+                && authorizationManager.check(authentication, serviceGetAllUsers).isGranted();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.security.benchmark;
+
+import com.example.security.SecurityApplication;
+import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.service.CustomUserDetailsService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.MappingMatch;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletMapping;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end JMH benchmark: one authenticated request through the full Spring Security
+ * filter chain (JwtAuthenticationFilter included) against the in-memory H2 store.
+ * The servlet itself is replaced by an empty MockFilterChain, so only security work is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityFilterChainBenchmark {
+
+    @Param({"false", "true"})
+    public boolean stateless;
+
+    @Param({"false", "true"})
+    public boolean tokenCache;
+
+    private ConfigurableApplicationContext context;
+    private Filter springSecurityFilterChain;
+    private ServletContext servletContext;
+    private String authorizationHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // passed as command line arguments so they take precedence over application.yml
+        context = new SpringApplicationBuilder(SecurityApplication.class)
+                .run(
+                    "--server.port=0",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.example.security=WARN",
+                    "--logging.level.org.springframework.security=WARN",
+                    "--logging.level.org.springframework.security.oauth2=WARN",
+                    "--logging.level.org.hibernate.SQL=WARN",
+                    "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                    "--jwt.stateless=" + stateless,
+                    "--jwt.cache.enabled=" + tokenCache
+                );
+        springSecurityFilterChain = context.getBean("springSecurityFilterChain", Filter.class);
+        // the real servlet context, so request matchers can tell the DispatcherServlet from the H2 console servlet
+        servletContext = ((WebApplicationContext) context).getServletContext();
+
+        JwtTokenUtil jwtTokenUtil = context.getBean(JwtTokenUtil.class);
+        CustomUserDetailsService userDetailsService = context.getBean(CustomUserDetailsService.class);
+        authorizationHeader = "Bearer " + jwtTokenUtil.generateAccessToken(userDetailsService.loadUserByUsername("user"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(servletContext, "GET", "/user/info");
+        request.setServletPath("/user/info");
+        request.setHttpServletMapping(new MockHttpServletMapping("/user/info", "", "dispatcherServlet", MappingMatch.DEFAULT));
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            springSecurityFilterChain.doFilter(request, response, new MockFilterChain());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks for token issuance and verification in JwtTokenUtil
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    @Param({"false", "true"})
+    public boolean stateless;
+
+    private JwtTokenUtil jwtTokenUtil;
+    private JwtTokenUtil jjwtOnly;
+    private UserDetails user;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("benchmark-secret-that-is-at-least-256-bits-long-for-hs256-algorithm");
+        config.setStateless(stateless);
+        jwtTokenUtil = new JwtTokenUtil(config);
+        JwtConfig jjwtConfig = new JwtConfig();
+        jjwtConfig.setSecret(config.getSecret());
+        jjwtConfig.setStateless(stateless);
+        jjwtConfig.setFastIssue(false);
+        jjwtConfig.setFastVerify(false);
+        jjwtOnly = new JwtTokenUtil(jjwtConfig);
+        user = User.withUsername("user").password("ignored").roles("USER", "MODERATOR").build();
+        accessToken = jwtTokenUtil.generateAccessToken(user);
+    }
+
+    /**
+     * HS256 template issuer (HmacJwtIssuer)
+     */
+    @Benchmark
+    public Map<String, String> generateTokenPair() {
+        return jwtTokenUtil.generateTokenPair(user);
+    }
+
+    /**
+     * Same tokens through jjwt's builder, for comparison with generateTokenPair()
+     */
+    @Benchmark
+    public Map<String, String> generateTokenPairWithJjwt() {
+        return jjwtOnly.generateTokenPair(user);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtTokenUtil.validateToken(accessToken, user);
+    }
+
+    /**
+     * HS256 fast path (HmacJwtVerifier)
+     */
+    @Benchmark
+    public VerifiedToken verify() {
+        return jwtTokenUtil.verify(accessToken);
+    }
+
+    /**
+     * Same result through jjwt, for comparison with verify()
+     */
+    @Benchmark
+    public VerifiedToken verifyWithJjwt() {
+        return VerifiedToken.from(jwtTokenUtil.extractAllClaims(accessToken));
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtTokenUtil.extractAllClaims(accessToken);
+    }
+}
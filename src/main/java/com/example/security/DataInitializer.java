@@ -68,6 +68,9 @@ public class DataInitializer implements CommandLineRunner {
         adminRoles.add("ADMIN");
         createUserIfNotExists("admin", "admin123", "admin@example.com", adminRoles);
 
+        // Create gateway service account (token introspection)
+        createUserIfNotExists("gateway", "gateway123", "gateway@example.com", Set.of("GATEWAY"));
+
         System.out.println("=== Test Data Initialization Complete ===");
         
         // Print all users for verification
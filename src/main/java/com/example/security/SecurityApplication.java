@@ -2,6 +2,7 @@ package com.example.security;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main Spring Boot Application Class
@@ -15,8 +16,10 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * - Spring Security will be automatically configured
  * - Default security rules will be applied
  * - We'll override these defaults in SecurityConfig
+ * - @EnableScheduling runs housekeeping such as purging expired token revocations
  */
 @SpringBootApplication
+@EnableScheduling
 public class SecurityApplication {
 
     public static void main(String[] args) {
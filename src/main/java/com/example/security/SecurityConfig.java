@@ -1,19 +1,45 @@
 package com.example.security;
 
+import com.example.security.authz.AuthorizationRules;
+import com.example.security.authz.CompiledPreAuthorizeAuthorizationManager;
+import com.example.security.authz.PathTrieAuthorizationManager;
+import com.example.security.config.AuthorizationConfig;
+import com.example.security.config.PasswordHashingConfig;
+import com.example.security.crypto.BoundedPasswordEncoder;
+import com.example.security.crypto.CalibratedBCryptPasswordEncoder;
 import com.example.security.jwt.JwtAuthenticationFilter;
 import com.example.security.oauth2.OAuth2SuccessHandler;
 import com.example.security.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.AuthorizationManagerAfterMethodInterceptor;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
+import org.springframework.security.authorization.method.PostAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.PostFilterAuthorizationMethodInterceptor;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.authorization.method.PreFilterAuthorizationMethodInterceptor;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.core.GrantedAuthorityDefaults;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserRequest;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
@@ -34,9 +60,11 @@ import java.util.Map;
  */
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity(prePostEnabled = true)
+@EnableMethodSecurity(prePostEnabled = false)
 /* EnableMethodSecurity is used to enable method security
- * prePostEnabled indicates that the @PreAuthorize and @PostAuthorize annotations are enabled
+ * prePostEnabled is off because the @PreFilter, @PreAuthorize, @PostAuthorize and @PostFilter
+ * interceptors are registered below, so that @PreAuthorize can be evaluated by
+ * CompiledPreAuthorizeAuthorizationManager
  */
 public class SecurityConfig {
 
@@ -49,35 +77,27 @@ public class SecurityConfig {
     @Autowired
     private OAuth2SuccessHandler oauth2SuccessHandler;
 
+    @Autowired
+    private AuthorizationConfig authorizationConfig;
+
     /**
      * SecurityFilterChain Bean - Configured for JWT
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   PathTrieAuthorizationManager urlAuthorizationManager) throws Exception {
         http
             // Configure authorization rules
-            .authorizeHttpRequests(auth -> auth
-                // Public endpoints - no authentication required
-                .requestMatchers("/public/**").permitAll()
-                
-                // Auth endpoints - no authentication required
-                .requestMatchers("/api/auth/**").permitAll()
-                .requestMatchers("/oauth2/**").permitAll()
-                
-                // Role-based endpoints
-                .requestMatchers("/admin/**").hasRole("ADMIN")
-                .requestMatchers("/moderator/**").hasAnyRole("ADMIN", "MODERATOR")
-                .requestMatchers("/user/**").hasAnyRole("USER", "ADMIN", "MODERATOR")
-                
-                // Private endpoints - requires any authentication
-                .requestMatchers("/private/**").authenticated()
-                
-                // H2 console - permit for development (disable in production)
-                .requestMatchers("/h2-console/**").permitAll()
-                
-                // All other requests require authentication
-                .anyRequest().authenticated()
-            )
+            .authorizeHttpRequests(auth -> {
+                // Streamed responses (batch introspection) re-dispatch without the JWT filter;
+                // the request itself was already authorized
+                auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
+                if (authorizationConfig.isCompiled()) {
+                    auth.anyRequest().access(urlAuthorizationManager);
+                } else {
+                    authorizationRules().applyTo(auth);
+                }
+            })
             
             // OAuth2 configuration
             .oauth2Login(oauth2 -> oauth2
@@ -115,6 +135,122 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * URL authorization rules - first match wins
+     */
+    static AuthorizationRules authorizationRules() {
+        return new AuthorizationRules()
+            // Public endpoints - no authentication required
+            .requestMatchers("/public/**").permitAll()
+            
+            // Token introspection - gateways only, declared before the public auth endpoints
+            .requestMatchers("/api/auth/introspect/**").hasAnyRole("GATEWAY", "ADMIN")
+            
+            // Auth endpoints - no authentication required
+            .requestMatchers("/api/auth/**").permitAll()
+            .requestMatchers("/oauth2/**").permitAll()
+            .requestMatchers("/.well-known/**").permitAll()
+            
+            // Role-based endpoints
+            .requestMatchers("/admin/**").hasRole("ADMIN")
+            .requestMatchers("/moderator/**").hasAnyRole("ADMIN", "MODERATOR")
+            .requestMatchers("/user/**").hasAnyRole("USER", "ADMIN", "MODERATOR")
+            
+            // Actuator - health for any authenticated caller, metrics (per-user counters) for admins
+            .requestMatchers("/actuator/health/**").authenticated()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
+            
+            // Private endpoints - requires any authentication
+            .requestMatchers("/private/**").authenticated()
+            
+            // H2 console - permit for development (disable in production)
+            .requestMatchers("/h2-console/**").permitAll()
+            
+            // All other requests require authentication
+            .anyRequest().authenticated();
+    }
+
+    /**
+     * URL authorization rules compiled into a path trie (authorization.compiled)
+     * Static so the JWT filter can depend on it without a cycle through this class
+     */
+    @Bean
+    public static PathTrieAuthorizationManager urlAuthorizationManager() {
+        return authorizationRules().compile();
+    }
+
+    /**
+     * Expression handler of the method security interceptors, set up as prePostEnabled would:
+     * @bean references, the GrantedAuthorityDefaults role prefix and any RoleHierarchy bean
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static MethodSecurityExpressionHandler methodSecurityExpressionHandler(
+            ObjectProvider<GrantedAuthorityDefaults> authorityDefaults,
+            ObjectProvider<RoleHierarchy> roleHierarchy,
+            ApplicationContext context) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        authorityDefaults.ifAvailable(defaults -> handler.setDefaultRolePrefix(defaults.getRolePrefix()));
+        roleHierarchy.ifAvailable(handler::setRoleHierarchy);
+        handler.setApplicationContext(context);
+        return handler;
+    }
+
+    /**
+     * @PreFilter interceptor, as registered by prePostEnabled
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor preFilterAdvisor(MethodSecurityExpressionHandler expressionHandler) {
+        PreFilterAuthorizationMethodInterceptor interceptor = new PreFilterAuthorizationMethodInterceptor();
+        interceptor.setExpressionHandler(expressionHandler);
+        return interceptor;
+    }
+
+    /**
+     * @PreAuthorize interceptor - compiled role checks (authorization.compiled-method-security) or SpEL
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor preAuthorizeAdvisor(AuthorizationConfig authorizationConfig,
+                                              MethodSecurityExpressionHandler expressionHandler,
+                                              ObjectProvider<GrantedAuthorityDefaults> authorityDefaults,
+                                              ObjectProvider<RoleHierarchy> roleHierarchy) {
+        PreAuthorizeAuthorizationManager expressions = new PreAuthorizeAuthorizationManager();
+        expressions.setExpressionHandler(expressionHandler);
+        // compiled checks match role names literally, so not with a hierarchy or another role prefix
+        GrantedAuthorityDefaults defaults = authorityDefaults.getIfAvailable();
+        boolean compiled = authorizationConfig.isCompiledMethodSecurity()
+                && roleHierarchy.getIfAvailable() == null
+                && (defaults == null || "ROLE_".equals(defaults.getRolePrefix()));
+        AuthorizationManager<MethodInvocation> manager = compiled
+                ? new CompiledPreAuthorizeAuthorizationManager(expressions)
+                : expressions;
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(manager);
+    }
+
+    /**
+     * @PostAuthorize interceptor, as registered by prePostEnabled
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor postAuthorizeAdvisor(MethodSecurityExpressionHandler expressionHandler) {
+        PostAuthorizeAuthorizationManager manager = new PostAuthorizeAuthorizationManager();
+        manager.setExpressionHandler(expressionHandler);
+        return AuthorizationManagerAfterMethodInterceptor.postAuthorize(manager);
+    }
+
+    /**
+     * @PostFilter interceptor, as registered by prePostEnabled
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor postFilterAdvisor(MethodSecurityExpressionHandler expressionHandler) {
+        PostFilterAuthorizationMethodInterceptor interceptor = new PostFilterAuthorizationMethodInterceptor();
+        interceptor.setExpressionHandler(expressionHandler);
+        return interceptor;
+    }
+
     /**
      * OIDC User Service for Google OAuth2
      */
@@ -157,20 +293,28 @@ public class SecurityConfig {
 
     /**
      * Password Encoder Bean
+     * BCrypt with a cost calibrated for this machine, behind a delegating encoder so that
+     * legacy "$2a$..." hashes still match and are rewritten as "{bcrypt}..." on login.
+     * Hashing runs on a dedicated bounded executor instead of the request threads.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingConfig passwordHashingConfig, MeterRegistry meterRegistry) {
+        PasswordEncoder bcrypt = CalibratedBCryptPasswordEncoder.fromConfig(passwordHashingConfig);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, passwordHashingConfig, meterRegistry);
     }
 
     /**
      * DaoAuthenticationProvider Bean
      */
     @Bean
-    public DaoAuthenticationProvider authenticationProvider() {
+    public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        // re-hash on successful login when the stored cost differs from the calibrated one
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
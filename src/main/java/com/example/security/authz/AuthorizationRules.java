@@ -0,0 +1,127 @@
+package com.example.security.authz;
+
+import com.example.security.entity.RoleMask;
+import org.springframework.security.config.annotation.web.configurers.AuthorizeHttpRequestsConfigurer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * URL Authorization Rules
+ *
+ * The URL access rules of the application, declared with the same vocabulary as Spring
+ * Security's authorizeHttpRequests DSL (requestMatchers(...).permitAll() / hasRole(...) /
+ * hasAnyRole(...) / authenticated() / denyAll(), anyRequest()) and the same semantics: rules
+ * are checked in declaration order and the first matching one decides.
+ *
+ * The rules are either compiled into a PathTrieAuthorizationManager or replayed onto the
+ * Spring DSL (applyTo), so there is exactly one place where routes are declared.
+ * Patterns are Ant-style path patterns made of literal segments, "*" (one segment) and a
+ * trailing "**" (any remainder); anything else is rejected when the rules are built.
+ */
+public final class AuthorizationRules {
+
+    enum Access { PERMIT_ALL, AUTHENTICATED, ROLES, DENY_ALL }
+
+    /**
+     * One declared rule; anyRequest() is a rule without patterns
+     */
+    record Rule(List<String> patterns, Access access, List<String> roles, int roleMask) {
+
+        boolean isAnyRequest() {
+            return patterns.isEmpty();
+        }
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private boolean anyRequestDeclared;
+
+    public Matched requestMatchers(String... patterns) {
+        if (anyRequestDeclared) {
+            throw new IllegalStateException("Rules cannot be added after anyRequest()");
+        }
+        if (patterns.length == 0) {
+            throw new IllegalArgumentException("requestMatchers() needs at least one pattern");
+        }
+        for (String pattern : patterns) {
+            PathTrieAuthorizationManager.parse(pattern); // fail fast on unsupported patterns
+        }
+        return new Matched(List.of(patterns));
+    }
+
+    public Matched anyRequest() {
+        if (anyRequestDeclared) {
+            throw new IllegalStateException("anyRequest() can only be declared once");
+        }
+        anyRequestDeclared = true;
+        return new Matched(List.of());
+    }
+
+    List<Rule> rules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Compile the rules into a path trie
+     */
+    public PathTrieAuthorizationManager compile() {
+        return new PathTrieAuthorizationManager(rules());
+    }
+
+    /**
+     * Register the same rules with Spring Security's own request matchers instead
+     */
+    public void applyTo(AuthorizeHttpRequestsConfigurer<?>.AuthorizationManagerRequestMatcherRegistry registry) {
+        for (Rule rule : rules) {
+            AuthorizeHttpRequestsConfigurer<?>.AuthorizedUrl url = rule.isAnyRequest()
+                    ? registry.anyRequest()
+                    : registry.requestMatchers(rule.patterns().toArray(new String[0]));
+            switch (rule.access()) {
+                case PERMIT_ALL -> url.permitAll();
+                case AUTHENTICATED -> url.authenticated();
+                case ROLES -> url.hasAnyRole(rule.roles().toArray(new String[0]));
+                case DENY_ALL -> url.denyAll();
+            }
+        }
+    }
+
+    /**
+     * Patterns waiting for their access requirement
+     */
+    public final class Matched {
+
+        private final List<String> patterns;
+
+        private Matched(List<String> patterns) {
+            this.patterns = patterns;
+        }
+
+        public AuthorizationRules permitAll() {
+            return add(Access.PERMIT_ALL, List.of());
+        }
+
+        public AuthorizationRules authenticated() {
+            return add(Access.AUTHENTICATED, List.of());
+        }
+
+        public AuthorizationRules denyAll() {
+            return add(Access.DENY_ALL, List.of());
+        }
+
+        public AuthorizationRules hasRole(String role) {
+            return hasAnyRole(role);
+        }
+
+        public AuthorizationRules hasAnyRole(String... roles) {
+            return add(Access.ROLES, List.of(roles));
+        }
+
+        private AuthorizationRules add(Access access, List<String> roles) {
+            // unknown role names fail here, at startup
+            int mask = access == Access.ROLES ? RoleMask.of(roles) : 0;
+            rules.add(new Rule(patterns, access, roles, mask));
+            return AuthorizationRules.this;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.security.authz;
+
+import com.example.security.entity.RoleMask;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiled @PreAuthorize Authorization Manager
+ *
+ * Method-security replacement for the SpEL evaluation of @PreAuthorize. Each annotated method
+ * is resolved once (method annotation first, then the class one, as Spring does) and its
+ * expression is compiled into the Role bitmask it requires, when it is one of
+ *   hasRole('A'), hasAnyRole('A', 'B'), hasAuthority('ROLE_A'), hasAnyAuthority('ROLE_A', ...)
+ * naming known roles. Every other expression is handed to Spring's own
+ * PreAuthorizeAuthorizationManager unchanged.
+ *
+ * A compiled check is one AND of the required mask against the caller's role mask. The caller's
+ * mask is derived from the Authentication's authorities once per request and kept in a request
+ * attribute, so nested checks within one request - a controller guarded by hasRole('ADMIN')
+ * calling a service method guarded by the same - reuse it instead of scanning again.
+ *
+ * Limits: nested checks are not collapsed. Every guarded method in a call chain is still checked;
+ * only the authority scan behind compiled checks is shared. SpEL fallbacks are evaluated on every
+ * call, because they may read method arguments or bean state. Compiled checks match role names
+ * literally, so SecurityConfig does not use this manager when a RoleHierarchy bean or a role
+ * prefix other than ROLE_ is configured.
+ */
+public final class CompiledPreAuthorizeAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final String CALLER_MASK_ATTRIBUTE = CompiledPreAuthorizeAuthorizationManager.class.getName() + ".CALLER_MASK";
+
+    private static final Pattern CALL = Pattern.compile("^\\s*(hasRole|hasAnyRole|hasAuthority|hasAnyAuthority)\\s*\\((.*)\\)\\s*$");
+    private static final String STRING = "(?:'[^']*'|\"[^\"]*\")";
+    private static final Pattern ARGUMENTS = Pattern.compile("^\\s*" + STRING + "(\\s*,\\s*" + STRING + ")*\\s*$");
+    private static final Pattern QUOTED = Pattern.compile("'([^']*)'|\"([^\"]*)\"");
+
+    /**
+     * What a method requires: a role mask, or the SpEL fallback (mask -1), or nothing (mask 0)
+     */
+    private record Requirement(int roleMask) {
+        boolean isCompiled() {
+            return roleMask > 0;
+        }
+    }
+
+    private static final Requirement NONE = new Requirement(0);
+    private static final Requirement EXPRESSION = new Requirement(-1);
+
+    private final Map<MethodClassKey, Requirement> requirements = new ConcurrentHashMap<>();
+    private final PreAuthorizeAuthorizationManager expressions;
+
+    public CompiledPreAuthorizeAuthorizationManager() {
+        this(new PreAuthorizeAuthorizationManager());
+    }
+
+    public CompiledPreAuthorizeAuthorizationManager(PreAuthorizeAuthorizationManager expressions) {
+        this.expressions = expressions;
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Requirement requirement = requirementOf(invocation);
+        if (requirement.isCompiled()) {
+            return (callerMask(authentication.get()) & requirement.roleMask()) != 0 ? GRANTED : DENIED;
+        }
+        if (requirement == NONE) {
+            return null; // abstain, like PreAuthorizeAuthorizationManager without an annotation
+        }
+        return expressions.check(authentication, invocation);
+    }
+
+    private Requirement requirementOf(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        Object target = invocation.getThis();
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : null;
+        return requirements.computeIfAbsent(new MethodClassKey(method, targetClass), key -> resolve(method, targetClass));
+    }
+
+    private static Requirement resolve(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        PreAuthorize annotation = AnnotatedElementUtils.findMergedAnnotation(specificMethod, PreAuthorize.class);
+        if (annotation == null) {
+            Class<?> type = targetClass != null ? targetClass : specificMethod.getDeclaringClass();
+            annotation = AnnotatedElementUtils.findMergedAnnotation(type, PreAuthorize.class);
+        }
+        if (annotation == null) {
+            return NONE;
+        }
+        int mask = compile(annotation.value());
+        return mask > 0 ? new Requirement(mask) : EXPRESSION;
+    }
+
+    /**
+     * Role mask an expression requires, or -1 if it is not a plain role check
+     */
+    static int compile(String expression) {
+        Matcher call = CALL.matcher(expression);
+        if (!call.matches() || !ARGUMENTS.matcher(call.group(2)).matches()) {
+            return -1;
+        }
+        String function = call.group(1);
+        boolean byRole = function.endsWith("Role");
+
+        List<String> roles = new ArrayList<>();
+        Matcher argument = QUOTED.matcher(call.group(2));
+        while (argument.find()) {
+            String value = argument.group(1) != null ? argument.group(1) : argument.group(2);
+            if (value.startsWith(ROLE_PREFIX)) {
+                value = value.substring(ROLE_PREFIX.length());
+            } else if (!byRole) {
+                return -1; // an authority that is not a role
+            }
+            roles.add(value);
+        }
+        if (!function.startsWith("hasAny") && roles.size() != 1) {
+            return -1;
+        }
+        int mask = RoleMask.tryOf(roles);
+        // role names are case-sensitive in SpEL, RoleMask is not
+        return mask > 0 && RoleMask.names(mask).containsAll(roles) ? mask : -1;
+    }
+
+    /**
+     * Role mask of the caller, computed once per request and Authentication
+     */
+    private static int callerMask(Authentication authentication) {
+        if (authentication == null) {
+            return 0;
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return roleMask(authentication);
+        }
+        Object cached = request.getAttribute(CALLER_MASK_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (cached instanceof CallerMask caller && caller.authentication() == authentication) {
+            return caller.mask();
+        }
+        int mask = roleMask(authentication);
+        request.setAttribute(CALLER_MASK_ATTRIBUTE, new CallerMask(authentication, mask), RequestAttributes.SCOPE_REQUEST);
+        return mask;
+    }
+
+    private static int roleMask(Authentication authentication) {
+        int mask = 0;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            mask |= RoleMask.ofAuthority(authority.getAuthority());
+        }
+        return mask;
+    }
+
+    private record CallerMask(Authentication authentication, int mask) {
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.security.authz;
+
+import com.example.security.entity.RoleMask;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.security.authentication.AuthenticationTrustResolver;
+import org.springframework.security.authentication.AuthenticationTrustResolverImpl;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Path Trie Authorization Manager
+ *
+ * AuthorizationRules compiled into a trie of path segments. Every node knows the first
+ * declared rule that ends exactly there and the first one whose trailing "**" starts there;
+ * a request is decided by walking its path once, keeping the lowest rule index seen (first
+ * match wins, like the DSL), then - for role rules - one AND of the caller's role bitmask
+ * against the rule's precomputed mask. No pattern matching, no allocation per request.
+ *
+ * Child lookup hashes the segment in place (String.hashCode over the char range) into an
+ * open-addressed table, so path segments are never copied out of the request path.
+ * "*" segments are a separate child per node and are only followed when present.
+ */
+public final class PathTrieAuthorizationManager implements AuthorizationManager<RequestAuthorizationContext> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+    static final int NO_RULE = Integer.MAX_VALUE;
+    private static final String WILDCARD = "*";
+    private static final String REMAINDER = "**";
+
+    private final AuthorizationRules.Rule[] rules;
+    private final Node root = new Node();
+    private final int anyRequestRule;
+    private final AuthenticationTrustResolver trustResolver = new AuthenticationTrustResolverImpl();
+
+    PathTrieAuthorizationManager(List<AuthorizationRules.Rule> rules) {
+        this.rules = rules.toArray(new AuthorizationRules.Rule[0]);
+        int anyRequest = NO_RULE;
+        for (int index = 0; index < this.rules.length; index++) {
+            AuthorizationRules.Rule rule = this.rules[index];
+            if (rule.isAnyRequest()) {
+                anyRequest = Math.min(anyRequest, index);
+            }
+            for (String pattern : rule.patterns()) {
+                insert(parse(pattern), index);
+            }
+        }
+        this.anyRequestRule = anyRequest;
+        root.freeze();
+    }
+
+    @Override
+    public AuthorizationDecision check(Supplier<Authentication> authentication, RequestAuthorizationContext context) {
+        return isGranted(authentication, context.getRequest()) ? GRANTED : DENIED;
+    }
+
+    /**
+     * Decide a request; the authentication is only obtained for rules that need it
+     */
+    public boolean isGranted(Supplier<Authentication> authentication, HttpServletRequest request) {
+        int index = ruleFor(request);
+        if (index == NO_RULE) {
+            return false; // like the DSL: requests no rule matches are denied
+        }
+        AuthorizationRules.Rule rule = rules[index];
+        return switch (rule.access()) {
+            case PERMIT_ALL -> true;
+            case DENY_ALL -> false;
+            case AUTHENTICATED -> isAuthenticated(authentication.get());
+            case ROLES -> (roleMask(authentication.get()) & rule.roleMask()) != 0;
+        };
+    }
+
+    /**
+     * Index of the rule deciding a request, NO_RULE if none does
+     */
+    int ruleFor(HttpServletRequest request) {
+        return Math.min(match(root, requestPath(request), 1), anyRequestRule);
+    }
+
+    /**
+     * The rule at an index returned by ruleFor
+     */
+    AuthorizationRules.Rule rule(int index) {
+        return rules[index];
+    }
+
+    int ruleCount() {
+        return rules.length;
+    }
+
+    private boolean isAuthenticated(Authentication authentication) {
+        return authentication != null && authentication.isAuthenticated() && !trustResolver.isAnonymous(authentication);
+    }
+
+    /**
+     * ROLE_ authorities of the caller as a Role bitmask
+     */
+    private static int roleMask(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return 0;
+        }
+        int mask = 0;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            mask |= RoleMask.ofAuthority(authority.getAuthority());
+        }
+        return mask;
+    }
+
+    /**
+     * Path within the application, as AntPathRequestMatcher sees it
+     */
+    private static String requestPath(HttpServletRequest request) {
+        String servletPath = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null) {
+            return servletPath.isEmpty() ? "/" : servletPath;
+        }
+        return servletPath.isEmpty() ? pathInfo : servletPath + pathInfo;
+    }
+
+    /**
+     * Lowest rule index matching path[position..] below the node
+     */
+    private static int match(Node node, String path, int position) {
+        int best = node.remainderRule; // "**" also matches nothing at all
+        int length = path.length();
+        if (position >= length) {
+            return Math.min(best, node.exactRule);
+        }
+        int end = path.indexOf('/', position);
+        if (end < 0) {
+            end = length;
+        }
+        // after the last segment; a trailing slash leaves one empty segment to match
+        int next = end < length ? end + 1 : length + 1;
+
+        Node child = node.child(path, position, end);
+        if (child != null) {
+            best = Math.min(best, matchRest(child, path, next, length));
+        }
+        if (node.wildcard != null && end > position) {
+            best = Math.min(best, matchRest(node.wildcard, path, next, length));
+        }
+        return best;
+    }
+
+    private static int matchRest(Node node, String path, int next, int length) {
+        if (next > length) {
+            return Math.min(node.remainderRule, node.exactRule);
+        }
+        return match(node, path, next);
+    }
+
+    private void insert(List<String> segments, int index) {
+        Node node = root;
+        for (String segment : segments) {
+            if (REMAINDER.equals(segment)) {
+                node.remainderRule = Math.min(node.remainderRule, index);
+                return;
+            }
+            node = WILDCARD.equals(segment) ? node.wildcard() : node.literal(segment);
+        }
+        node.exactRule = Math.min(node.exactRule, index);
+    }
+
+    /**
+     * Split a pattern into segments; only literal segments, "*" and a trailing "**" are supported
+     *
+     * @throws IllegalArgumentException for any other pattern
+     */
+    static List<String> parse(String pattern) {
+        if (pattern == null || !pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Path patterns must start with '/': " + pattern);
+        }
+        List<String> segments = new ArrayList<>();
+        if (pattern.length() == 1) {
+            return segments;
+        }
+        String[] parts = pattern.substring(1).split("/", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            boolean wildcard = WILDCARD.equals(part) || REMAINDER.equals(part);
+            if (REMAINDER.equals(part) && i != parts.length - 1) {
+                throw new IllegalArgumentException("'**' is only supported at the end of a pattern: " + pattern);
+            }
+            if (!wildcard && (part.indexOf('*') >= 0 || part.indexOf('?') >= 0 || part.indexOf('{') >= 0)) {
+                throw new IllegalArgumentException("Unsupported path pattern segment '" + part + "' in " + pattern);
+            }
+            segments.add(part);
+        }
+        return segments;
+    }
+
+    private static final class Node {
+
+        private int exactRule = NO_RULE;
+        private int remainderRule = NO_RULE;
+        private Node wildcard;
+
+        // built as lists, then frozen into an open-addressed table keyed by segment
+        private List<String> names = new ArrayList<>();
+        private List<Node> nodes = new ArrayList<>();
+        private String[] keys = new String[0];
+        private Node[] children = new Node[0];
+        private int tableMask;
+
+        Node literal(String segment) {
+            int existing = names.indexOf(segment);
+            if (existing >= 0) {
+                return nodes.get(existing);
+            }
+            Node child = new Node();
+            names.add(segment);
+            nodes.add(child);
+            return child;
+        }
+
+        Node wildcard() {
+            if (wildcard == null) {
+                wildcard = new Node();
+            }
+            return wildcard;
+        }
+
+        void freeze() {
+            int size = Integer.highestOneBit(Math.max(1, names.size()) * 2 - 1) << 1; // load factor <= 1/2
+            keys = new String[size];
+            children = new Node[size];
+            tableMask = size - 1;
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                int slot = spread(name.hashCode()) & tableMask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & tableMask;
+                }
+                keys[slot] = name;
+                children[slot] = nodes.get(i);
+                nodes.get(i).freeze();
+            }
+            if (wildcard != null) {
+                wildcard.freeze();
+            }
+            names = null;
+            nodes = null;
+        }
+
+        Node child(String path, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+            int length = end - start;
+            for (int slot = spread(hash) & tableMask; keys[slot] != null; slot = (slot + 1) & tableMask) {
+                String key = keys[slot];
+                if (key.length() == length && path.regionMatches(start, key, 0, length)) {
+                    return children[slot];
+                }
+            }
+            return null;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
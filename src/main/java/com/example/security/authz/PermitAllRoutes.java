@@ -0,0 +1,73 @@
+package com.example.security.authz;
+
+import com.example.security.config.AuthorizationConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+/**
+ * Permit-All Route Classification
+ *
+ * Tells the JWT filter which requests it can pass through untouched: those decided by a
+ * permitAll rule of the compiled URL rules, where no token can change the outcome. Routes
+ * listed in authorization.principal-routes are permitAll too but their handlers read the
+ * current user, so tokens are still processed there.
+ *
+ * Classification reuses the trie walk of PathTrieAuthorizationManager; the opt-in routes
+ * are compiled into a trie of their own.
+ *
+ * Metrics: jwt.filter.routes{route, outcome=skipped|processed} (counter per URL rule)
+ */
+@Component
+public class PermitAllRoutes {
+
+    private final PathTrieAuthorizationManager rules;
+    private final PathTrieAuthorizationManager principalRoutes;
+    private final boolean enabled;
+
+    // per rule index, plus one slot for requests no rule matches
+    private final Counter[] skipped;
+    private final Counter[] processed;
+
+    public PermitAllRoutes(PathTrieAuthorizationManager urlAuthorizationManager,
+                           AuthorizationConfig config,
+                           MeterRegistry meterRegistry) {
+        this.rules = urlAuthorizationManager;
+        this.enabled = config.isSkipTokenOnPermitAll();
+        this.principalRoutes = config.getPrincipalRoutes().isEmpty()
+                ? null
+                : new AuthorizationRules()
+                        .requestMatchers(config.getPrincipalRoutes().toArray(new String[0])).permitAll()
+                        .compile();
+
+        int count = rules.ruleCount();
+        this.skipped = new Counter[count + 1];
+        this.processed = new Counter[count + 1];
+        for (int index = 0; index <= count; index++) {
+            String route = index < count ? label(rules.rule(index)) : "unmatched";
+            skipped[index] = meterRegistry.counter("jwt.filter.routes", "route", route, "outcome", "skipped");
+            processed[index] = meterRegistry.counter("jwt.filter.routes", "route", route, "outcome", "processed");
+        }
+    }
+
+    /**
+     * Whether token processing can be skipped for the request; counts the outcome per route
+     */
+    public boolean skipsTokenProcessing(HttpServletRequest request) {
+        int index = rules.ruleFor(request);
+        if (index == PathTrieAuthorizationManager.NO_RULE) {
+            processed[processed.length - 1].increment();
+            return false;
+        }
+        boolean skip = enabled
+                && rules.rule(index).access() == AuthorizationRules.Access.PERMIT_ALL
+                && (principalRoutes == null || principalRoutes.ruleFor(request) == PathTrieAuthorizationManager.NO_RULE);
+        (skip ? skipped : processed)[index].increment();
+        return skip;
+    }
+
+    private static String label(AuthorizationRules.Rule rule) {
+        return rule.isAnyRequest() ? "anyRequest" : String.join(",", rule.patterns());
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.security.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * URL Authorization Configuration Properties
+ * How the URL rules of SecurityConfig are evaluated
+ */
+@Component
+@ConfigurationProperties(prefix = "authorization")
+public class AuthorizationConfig {
+    
+    private boolean compiled = true;   // true = path trie, false = Spring Security's request matchers
+    private boolean compiledMethodSecurity = true;   // role-only @PreAuthorize checks as bitmask tests instead of SpEL
+    private boolean skipTokenOnPermitAll = true;   // JWT filter ignores tokens on permitAll routes...
+    private List<String> principalRoutes = new ArrayList<>(List.of(   // ...except these, which read the current user
+            "/public/hello", "/api/auth/me", "/api/auth/validate", "/oauth2/**"));
+    
+    // Getters and Setters
+    public boolean isCompiled() {
+        return compiled;
+    }
+    
+    public void setCompiled(boolean compiled) {
+        this.compiled = compiled;
+    }
+    
+    public boolean isCompiledMethodSecurity() {
+        return compiledMethodSecurity;
+    }
+    
+    public void setCompiledMethodSecurity(boolean compiledMethodSecurity) {
+        this.compiledMethodSecurity = compiledMethodSecurity;
+    }
+    
+    public boolean isSkipTokenOnPermitAll() {
+        return skipTokenOnPermitAll;
+    }
+    
+    public void setSkipTokenOnPermitAll(boolean skipTokenOnPermitAll) {
+        this.skipTokenOnPermitAll = skipTokenOnPermitAll;
+    }
+    
+    public List<String> getPrincipalRoutes() {
+        return principalRoutes;
+    }
+    
+    public void setPrincipalRoutes(List<String> principalRoutes) {
+        this.principalRoutes = principalRoutes;
+    }
+}
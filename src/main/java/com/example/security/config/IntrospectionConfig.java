@@ -0,0 +1,49 @@
+package com.example.security.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Token Introspection Configuration Properties
+ * Limits of the batch introspection endpoint and its verification pool
+ */
+@Component
+@ConfigurationProperties(prefix = "introspection")
+public class IntrospectionConfig {
+    
+    private int poolSize = 0;          // 0 = number of available processors
+    private int queueCapacity = 1024;  // tokens waiting for a worker; beyond that the request thread helps out
+    private int maxBatchSize = 500;    // tokens accepted per request
+    
+    /**
+     * Effective worker count
+     */
+    public int resolvePoolSize() {
+        return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    }
+    
+    // Getters and Setters
+    public int getPoolSize() {
+        return poolSize;
+    }
+    
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+    
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+}
@@ -3,6 +3,8 @@ package com.example.security.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 /**
  * JWT Configuration Properties
  * Enhanced for both access and refresh tokens
@@ -12,9 +14,17 @@ import org.springframework.stereotype.Component;
 public class JwtConfig {
     
     private String secret;
+    private String secretFile; // if set, the secret is read from this file and reloaded when it changes
     private long accessTokenExpiration = 900000;  // 15 minutes default
     private long refreshTokenExpiration = 604800000; // 7 days default
     private String issuer = "spring-security-practice";
+    private boolean stateless = false; // build the principal from token claims instead of the database
+    private boolean fastVerify = true; // verify HS256 tokens with HmacJwtVerifier, jjwt only as fallback
+    private boolean fastIssue = true; // mint HS256 access/refresh tokens with HmacJwtIssuer instead of jjwt
+    private Cache cache = new Cache();
+    private Revocation revocation = new Revocation();
+    private Signing signing = new Signing();
+    private Renewal renewal = new Renewal();
     
     // Getters and Setters
     public String getSecret() {
@@ -25,6 +35,14 @@ public class JwtConfig {
         this.secret = secret;
     }
     
+    public String getSecretFile() {
+        return secretFile;
+    }
+    
+    public void setSecretFile(String secretFile) {
+        this.secretFile = secretFile;
+    }
+    
     public long getAccessTokenExpiration() {
         return accessTokenExpiration;
     }
@@ -49,6 +67,62 @@ public class JwtConfig {
         this.issuer = issuer;
     }
     
+    public boolean isStateless() {
+        return stateless;
+    }
+    
+    public void setStateless(boolean stateless) {
+        this.stateless = stateless;
+    }
+    
+    public boolean isFastVerify() {
+        return fastVerify;
+    }
+    
+    public void setFastVerify(boolean fastVerify) {
+        this.fastVerify = fastVerify;
+    }
+    
+    public boolean isFastIssue() {
+        return fastIssue;
+    }
+    
+    public void setFastIssue(boolean fastIssue) {
+        this.fastIssue = fastIssue;
+    }
+    
+    public Cache getCache() {
+        return cache;
+    }
+    
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+    
+    public Revocation getRevocation() {
+        return revocation;
+    }
+    
+    public void setRevocation(Revocation revocation) {
+        this.revocation = revocation;
+    }
+    
+    public Signing getSigning() {
+        return signing;
+    }
+    
+    public void setSigning(Signing signing) {
+        this.signing = signing;
+    }
+    
+    public Renewal getRenewal() {
+        return renewal;
+    }
+    
+    public void setRenewal(Renewal renewal) {
+        this.renewal = renewal;
+    }
+    
     // Legacy method for backward compatibility
     public long getExpiration() {
         return accessTokenExpiration;
@@ -57,4 +131,212 @@ public class JwtConfig {
     public void setExpiration(long expiration) {
         this.accessTokenExpiration = expiration;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Verified-token cache settings (jwt.cache.*)
+     */
+    public static class Cache {
+        
+        private boolean enabled = false;
+        private long maxSize = 10000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public long getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+    
+    /**
+     * Token revocation settings (jwt.revocation.*)
+     */
+    public static class Revocation {
+        
+        private long expectedEntries = 100000;
+        private double falsePositiveRate = 0.01;
+        private Duration purgeInterval = Duration.ofMinutes(1);
+        
+        public long getExpectedEntries() {
+            return expectedEntries;
+        }
+        
+        public void setExpectedEntries(long expectedEntries) {
+            this.expectedEntries = expectedEntries;
+        }
+        
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+        
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+        
+        public Duration getPurgeInterval() {
+            return purgeInterval;
+        }
+        
+        public void setPurgeInterval(Duration purgeInterval) {
+            this.purgeInterval = purgeInterval;
+        }
+    }
+    
+    /**
+     * Token signing key settings (jwt.signing.*)
+     */
+    public static class Signing {
+        
+        private String algorithm = "HS256"; // HS256 (jwt.secret) or RS256 (key-store, else generated key pairs)
+        private String keyStore;            // PKCS12/JKS file holding the RS256 key pair, shared by all nodes
+        private String keyStoreType = "PKCS12";
+        private String keyStorePassword;
+        private String keyAlias;            // null = the key store's only private key entry
+        private String keyPassword;         // null = key-store-password
+        private int keySize = 2048;
+        private Duration rotationInterval = Duration.ofDays(1);
+        private Duration verificationOverlap; // null = longest token lifetime
+        private Duration reloadInterval = Duration.ofSeconds(30);
+        
+        public String getAlgorithm() {
+            return algorithm;
+        }
+        
+        public void setAlgorithm(String algorithm) {
+            this.algorithm = algorithm;
+        }
+        
+        public String getKeyStore() {
+            return keyStore;
+        }
+        
+        public void setKeyStore(String keyStore) {
+            this.keyStore = keyStore;
+        }
+        
+        public String getKeyStoreType() {
+            return keyStoreType;
+        }
+        
+        public void setKeyStoreType(String keyStoreType) {
+            this.keyStoreType = keyStoreType;
+        }
+        
+        public String getKeyStorePassword() {
+            return keyStorePassword;
+        }
+        
+        public void setKeyStorePassword(String keyStorePassword) {
+            this.keyStorePassword = keyStorePassword;
+        }
+        
+        public String getKeyAlias() {
+            return keyAlias;
+        }
+        
+        public void setKeyAlias(String keyAlias) {
+            this.keyAlias = keyAlias;
+        }
+        
+        public String getKeyPassword() {
+            return keyPassword;
+        }
+        
+        public void setKeyPassword(String keyPassword) {
+            this.keyPassword = keyPassword;
+        }
+        
+        public int getKeySize() {
+            return keySize;
+        }
+        
+        public void setKeySize(int keySize) {
+            this.keySize = keySize;
+        }
+        
+        public Duration getRotationInterval() {
+            return rotationInterval;
+        }
+        
+        public void setRotationInterval(Duration rotationInterval) {
+            this.rotationInterval = rotationInterval;
+        }
+        
+        public Duration getVerificationOverlap() {
+            return verificationOverlap;
+        }
+        
+        public void setVerificationOverlap(Duration verificationOverlap) {
+            this.verificationOverlap = verificationOverlap;
+        }
+        
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
+        
+        public void setReloadInterval(Duration reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+    }
+    
+    /**
+     * Sliding access-token renewal settings (jwt.renewal.*)
+     */
+    public static class Renewal {
+        
+        private boolean enabled = false;
+        private Duration window = Duration.ofMinutes(2); // renew tokens with less than this left
+        private String header = "X-Access-Token";
+        private long maxSize = 10000; // renewed tokens remembered per jti, for concurrent requests
+        private Duration maxSessionAge = Duration.ofHours(12); // no renewal past auth_time + this
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public Duration getWindow() {
+            return window;
+        }
+        
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+        
+        public String getHeader() {
+            return header;
+        }
+        
+        public void setHeader(String header) {
+            this.header = header;
+        }
+        
+        public long getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+        
+        public Duration getMaxSessionAge() {
+            return maxSessionAge;
+        }
+        
+        public void setMaxSessionAge(Duration maxSessionAge) {
+            this.maxSessionAge = maxSessionAge;
+        }
+    }
+}
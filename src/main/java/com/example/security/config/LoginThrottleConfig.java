@@ -0,0 +1,87 @@
+package com.example.security.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Login Throttle Configuration Properties
+ * Limits on failed login attempts per username and per client IP
+ */
+@Component
+@ConfigurationProperties(prefix = "login-throttle")
+public class LoginThrottleConfig {
+    
+    private boolean enabled = true;
+    private Duration window = Duration.ofMinutes(1);
+    private int maxFailuresPerUsername = 10;
+    private int maxFailuresPerIp = 50;
+    private int lockThreshold = 50;   // failures per username within a window that temporarily lock the account
+    private Duration lockDuration;    // how long such a lock lasts; null = window
+    private int slots = 1 << 18;      // counters per sketch row, bounds memory regardless of key count
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public Duration getWindow() {
+        return window;
+    }
+    
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+    
+    public int getMaxFailuresPerUsername() {
+        return maxFailuresPerUsername;
+    }
+    
+    public void setMaxFailuresPerUsername(int maxFailuresPerUsername) {
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+    }
+    
+    public int getMaxFailuresPerIp() {
+        return maxFailuresPerIp;
+    }
+    
+    public void setMaxFailuresPerIp(int maxFailuresPerIp) {
+        this.maxFailuresPerIp = maxFailuresPerIp;
+    }
+    
+    public int getLockThreshold() {
+        return lockThreshold;
+    }
+    
+    public void setLockThreshold(int lockThreshold) {
+        this.lockThreshold = lockThreshold;
+    }
+    
+    public Duration getLockDuration() {
+        return lockDuration;
+    }
+    
+    public void setLockDuration(Duration lockDuration) {
+        this.lockDuration = lockDuration;
+    }
+    
+    /**
+     * Effective lock duration
+     */
+    public Duration resolveLockDuration() {
+        return lockDuration != null ? lockDuration : window;
+    }
+    
+    public int getSlots() {
+        return slots;
+    }
+    
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.security.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Password Hashing Configuration Properties
+ * Sizing of the dedicated executor that runs BCrypt off the request threads
+ */
+@Component
+@ConfigurationProperties(prefix = "password-hashing")
+public class PasswordHashingConfig {
+    
+    private int poolSize = 0;                          // 0 = number of available processors
+    private int queueCapacity = 64;                    // hashes allowed to wait for a free worker
+    private Duration timeout = Duration.ofSeconds(5);  // max time a caller waits for its hash
+    private Duration retryAfter = Duration.ofSeconds(1);
+    
+    private int strength = 0;                          // fixed BCrypt cost; 0 = calibrate at startup
+    private Duration targetHashTime = Duration.ofMillis(100);
+    private int minStrength = 10;                      // calibration never goes below this
+    private int maxStrength = 14;
+    
+    /**
+     * Effective worker count
+     */
+    public int resolvePoolSize() {
+        return poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+    }
+    
+    // Getters and Setters
+    public int getPoolSize() {
+        return poolSize;
+    }
+    
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+    
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+    
+    public Duration getTimeout() {
+        return timeout;
+    }
+    
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+    
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+    
+    public int getStrength() {
+        return strength;
+    }
+    
+    public void setStrength(int strength) {
+        this.strength = strength;
+    }
+    
+    public Duration getTargetHashTime() {
+        return targetHashTime;
+    }
+    
+    public void setTargetHashTime(Duration targetHashTime) {
+        this.targetHashTime = targetHashTime;
+    }
+    
+    public int getMinStrength() {
+        return minStrength;
+    }
+    
+    public void setMinStrength(int minStrength) {
+        this.minStrength = minStrength;
+    }
+    
+    public int getMaxStrength() {
+        return maxStrength;
+    }
+    
+    public void setMaxStrength(int maxStrength) {
+        this.maxStrength = maxStrength;
+    }
+}
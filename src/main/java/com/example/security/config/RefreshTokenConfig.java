@@ -0,0 +1,83 @@
+package com.example.security.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Refresh Token Rotation Configuration Properties
+ * Where rotation records are kept and how refreshes of the same session are serialized
+ */
+@Component
+@ConfigurationProperties(prefix = "refresh-token")
+public class RefreshTokenConfig {
+    
+    /**
+     * memory (single node, lost on restart), file (single node, memory-mapped log that survives
+     * restarts) or jpa (the application datasource)
+     */
+    private String store = "memory";
+    /**
+     * jwt (signed, self-contained refresh tokens) or opaque (random handles resolved in the store)
+     */
+    private String format = "jwt";
+    private int lockStripes = 64;
+    private Duration purgeInterval = Duration.ofMinutes(10);
+    private String file = "data/refresh-tokens.log"; // store=file only
+    private DataSize fileSize = DataSize.ofMegabytes(16); // initial mapping, grows when full
+    
+    // Getters and Setters
+    public String getStore() {
+        return store;
+    }
+    
+    public void setStore(String store) {
+        this.store = store;
+    }
+    
+    public String getFormat() {
+        return format;
+    }
+    
+    public void setFormat(String format) {
+        this.format = format;
+    }
+    
+    public boolean isOpaque() {
+        return "opaque".equalsIgnoreCase(format);
+    }
+    
+    public int getLockStripes() {
+        return lockStripes;
+    }
+    
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+    
+    public Duration getPurgeInterval() {
+        return purgeInterval;
+    }
+    
+    public void setPurgeInterval(Duration purgeInterval) {
+        this.purgeInterval = purgeInterval;
+    }
+    
+    public String getFile() {
+        return file;
+    }
+    
+    public void setFile(String file) {
+        this.file = file;
+    }
+    
+    public DataSize getFileSize() {
+        return fileSize;
+    }
+    
+    public void setFileSize(DataSize fileSize) {
+        this.fileSize = fileSize;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.security.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * User Details Cache Configuration Properties
+ * Bounds and lifetime of the cached user snapshots used during authentication
+ */
+@Component
+@ConfigurationProperties(prefix = "user-cache")
+public class UserCacheConfig {
+    
+    private boolean enabled = true;
+    private long maxSize = 10000;
+    private Duration ttl = Duration.ofMinutes(5);
+    private Duration negativeTtl = Duration.ofSeconds(30); // unknown usernames/emails; 0 disables
+    private long negativeMaxSize = 100000;
+    private Duration loadTimeout = Duration.ofSeconds(5); // wait for a concurrent load of the same user
+    
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public long getMaxSize() {
+        return maxSize;
+    }
+    
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    public Duration getTtl() {
+        return ttl;
+    }
+    
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+    
+    public Duration getNegativeTtl() {
+        return negativeTtl;
+    }
+    
+    public void setNegativeTtl(Duration negativeTtl) {
+        this.negativeTtl = negativeTtl;
+    }
+    
+    public long getNegativeMaxSize() {
+        return negativeMaxSize;
+    }
+    
+    public void setNegativeMaxSize(long negativeMaxSize) {
+        this.negativeMaxSize = negativeMaxSize;
+    }
+    
+    public Duration getLoadTimeout() {
+        return loadTimeout;
+    }
+    
+    public void setLoadTimeout(Duration loadTimeout) {
+        this.loadTimeout = loadTimeout;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.security.controller;
 
 import com.example.security.entity.User;
+import com.example.security.jwt.SigningKeyRing;
 import com.example.security.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +21,9 @@ public class AdminController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private SigningKeyRing keyRing;
+
     /**
      * Get admin dashboard
      * Access: ADMIN role only
@@ -59,6 +63,16 @@ public class AdminController {
         return ResponseEntity.ok("User role updated successfully");
     }
 
+    /**
+     * Lift the temporary lock the login throttle puts on a user after repeated failed logins
+     * Access: ADMIN role only
+     */
+    @PutMapping("/users/{id}/unlock")
+    public ResponseEntity<String> unlockUser(@PathVariable Long id) {
+        userService.unlockUser(id);
+        return ResponseEntity.ok("User unlocked successfully");
+    }
+
     /**
      * Delete user
      * Access: ADMIN role only
@@ -69,6 +83,17 @@ public class AdminController {
         return ResponseEntity.ok("User deleted successfully");
     }
 
+    /**
+     * Reload token signing material (re-read jwt.secret-file, or rotate the RS256 key pair).
+     * Tokens signed with the previous key stay valid for the verification overlap.
+     * Access: ADMIN role only
+     */
+    @PostMapping("/keys/reload")
+    public ResponseEntity<String> reloadSigningKeys() {
+        String kid = keyRing.reload();
+        return ResponseEntity.ok("Active signing key: " + kid);
+    }
+
     /**
      * System statistics
      * Access: ADMIN role only
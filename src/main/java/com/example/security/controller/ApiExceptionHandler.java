@@ -0,0 +1,76 @@
+package com.example.security.controller;
+
+import com.example.security.crypto.PasswordHashingRejectedException;
+import com.example.security.refresh.RefreshTokenReuseException;
+import com.example.security.service.UserNotFoundException;
+import com.example.security.throttle.LoginThrottledException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/**
+ * API Exception Handler
+ * Maps overload, throttling, token reuse and missing user exceptions to HTTP responses
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    /**
+     * Password hashing executor is saturated: 503 with Retry-After
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(e.getRetryAfter().toMillis()))
+                .body(Map.of(
+                    "error", "Service busy",
+                    "message", e.getMessage()
+                ));
+    }
+
+    /**
+     * Too many failed logins for this account or address: 429 with Retry-After
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Map<String, Object>> handleLoginThrottled(LoginThrottledException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(e.getRetryAfter().toMillis()))
+                .body(Map.of(
+                    "error", "Too many requests",
+                    "message", e.getMessage()
+                ));
+    }
+
+    /**
+     * A rotated refresh token was replayed and its session revoked: 401, the client must log in again
+     */
+    @ExceptionHandler(RefreshTokenReuseException.class)
+    public ResponseEntity<Map<String, Object>> handleRefreshTokenReuse(RefreshTokenReuseException e) {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of(
+                    "error", "Unauthorized",
+                    "message", e.getMessage()
+                ));
+    }
+
+    /**
+     * Admin operation on a user id that does not exist: 404
+     */
+    @ExceptionHandler(UserNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleUserNotFound(UserNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of(
+                    "error", "Not found",
+                    "message", e.getMessage()
+                ));
+    }
+
+    private static String retryAfterSeconds(long millis) {
+        // Retry-After is whole seconds, round up so clients never retry too early
+        return String.valueOf(Math.max(1, (millis + 999) / 1000));
+    }
+}
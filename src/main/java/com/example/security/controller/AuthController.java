@@ -1,13 +1,26 @@
 package com.example.security.controller;
 
+import com.example.security.config.IntrospectionConfig;
 import com.example.security.dto.AuthResponse;
+import com.example.security.dto.BatchIntrospectionRequest;
 import com.example.security.dto.LoginRequest;
+import com.example.security.dto.LogoutRequest;
 import com.example.security.dto.RegisterRequest;
 import com.example.security.dto.TokenResponse;
 import com.example.security.service.AuthService;
+import com.example.security.service.TokenIntrospectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * Authentication Controller
@@ -21,6 +34,15 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private TokenIntrospectionService introspectionService;
+
+    @Autowired
+    private IntrospectionConfig introspectionConfig;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Register a new user
      * POST /api/auth/register
@@ -43,11 +65,12 @@ public class AuthController {
 
     /**
      * Get current user info from JWT token
-     * GET /api/auth/me
+     * GET /api/auth/me[?reissue=true]
      */
     @GetMapping("/me")
-    public ResponseEntity<AuthResponse> getCurrentUser(@RequestHeader("Authorization") String authHeader) {
-        AuthResponse response = authService.getCurrentUser();
+    public ResponseEntity<AuthResponse> getCurrentUser(@RequestHeader("Authorization") String authHeader,
+                                                       @RequestParam(defaultValue = "false") boolean reissue) {
+        AuthResponse response = authService.getCurrentUser(reissue);
         
         if (response.isSuccess()) {
             return ResponseEntity.ok(response);
@@ -58,11 +81,13 @@ public class AuthController {
 
     /**
      * Validate JWT token
-     * POST /api/auth/validate
+     * Answered from the verified claims only; pass reissue=true to also get a fresh access token
+     * POST /api/auth/validate[?reissue=true]
      */
     @PostMapping("/validate")
-    public ResponseEntity<AuthResponse> validateToken(@RequestHeader("Authorization") String authHeader) {
-        AuthResponse response = authService.getCurrentUser();
+    public ResponseEntity<AuthResponse> validateToken(@RequestHeader("Authorization") String authHeader,
+                                                      @RequestParam(defaultValue = "false") boolean reissue) {
+        AuthResponse response = authService.getCurrentUser(reissue);
         
         if (response.isSuccess()) {
             return ResponseEntity.ok(AuthResponse.success("Token is valid", response.getUsername(), response.getRole(), response.getToken()));
@@ -71,6 +96,45 @@ public class AuthController {
         }
     }
 
+    /**
+     * Batch token introspection for gateways (requires role GATEWAY or ADMIN)
+     * Verifies up to introspection.max-batch-size tokens in parallel and streams one JSON line
+     * per token as soon as it is done: {"index":0,"active":true,"sub":"...","roles":[...],"exp":...}
+     * POST /api/auth/introspect/batch  {"tokens": ["...", "..."]}
+     */
+    @PostMapping(value = "/introspect/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> introspectBatch(@RequestBody BatchIntrospectionRequest request) {
+        List<String> tokens = request.getTokens();
+        if (tokens == null || tokens.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (tokens.size() > introspectionConfig.getMaxBatchSize()) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                introspectionService.introspectAll(tokens, result -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(result));
+                        out.write('\n');
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Introspection interrupted");
+            } catch (UncheckedIOException e) {
+                throw e.getCause(); // client went away
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     /**
      * Token refresh endpoint
      */
@@ -86,12 +150,16 @@ public class AuthController {
     }
 
     /**
-     * Logout endpoint (client-side token removal)
+     * Logout endpoint: revokes the presented access token until it expires, and the family
+     * of the refresh token in the body, if any
      */
     @PostMapping("/logout")
-    public ResponseEntity<String> logout() {
-        // In a stateless JWT system, logout is handled client-side
-        // You could implement a token blacklist here for additional security
+    public ResponseEntity<String> logout(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                         @RequestBody(required = false) LogoutRequest logoutRequest) {
+        // The token's jti goes on the revocation list, so it stops authenticating immediately
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+        String refreshToken = logoutRequest != null ? logoutRequest.getRefreshToken() : null;
+        authService.logout(accessToken, refreshToken);
         return ResponseEntity.ok("Logged out successfully");
     }
 }
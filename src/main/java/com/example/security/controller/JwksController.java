@@ -0,0 +1,37 @@
+package com.example.security.controller;
+
+import com.example.security.jwt.SigningKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWKS Controller
+ * Publishes the public token signing keys (RS256 mode) so resource servers can verify our
+ * tokens locally instead of calling back into this service. Served from memory; the document
+ * only changes when the key ring rotates. In HS256 mode the key set is empty.
+ */
+@RestController
+public class JwksController {
+
+    @Autowired
+    private SigningKeyRing keyRing;
+
+    /**
+     * JSON Web Key Set
+     * GET /.well-known/jwks.json
+     */
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                // well below the verification overlap, so clients always see a new key before it is needed
+                .cacheControl(CacheControl.maxAge(5, TimeUnit.MINUTES).cachePublic())
+                .body(keyRing.jwks());
+    }
+}
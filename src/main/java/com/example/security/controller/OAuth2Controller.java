@@ -1,8 +1,10 @@
 package com.example.security.controller;
 
+import com.example.security.crypto.PasswordHashingRejectedException;
 import com.example.security.entity.User;
 import com.example.security.repository.UserRepository;
 import com.example.security.service.AuthService;
+import com.example.security.service.UserDetailsCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -36,6 +38,9 @@ public class OAuth2Controller {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     /**
      * Get OAuth2 user info
      */
@@ -98,6 +103,8 @@ public class OAuth2Controller {
             
             return ResponseEntity.ok(result);
             
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(Map.of(
                 "error", "Linking failed",
@@ -131,6 +138,7 @@ public class OAuth2Controller {
                     user.setOauth2Provider(null);
                     user.setOauth2Id(null);
                     userRepository.save(user);
+                    userDetailsCache.evict(user);
                 });
             
             return ResponseEntity.ok("OAuth2 account unlinked successfully");
@@ -0,0 +1,99 @@
+package com.example.security.crypto;
+
+import com.example.security.config.PasswordHashingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Calibrated BCrypt Password Encoder
+ *
+ * BCrypt with a work factor chosen for the machine it runs on: at startup it hashes a sample
+ * password at increasing cost and keeps the highest cost whose hash still fits the target
+ * latency (password-hashing.target-hash-time), clamped to [min-strength, max-strength].
+ * A fixed password-hashing.strength skips calibration.
+ *
+ * Unlike the stock encoder, upgradeEncoding() reports any hash whose cost differs from the
+ * calibrated one, so hashes are re-encoded on login in both directions.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * Encoder for the configured strength, or calibrated to the target hash time
+     */
+    public static CalibratedBCryptPasswordEncoder fromConfig(PasswordHashingConfig config) {
+        if (config.getStrength() > 0) {
+            return new CalibratedBCryptPasswordEncoder(config.getStrength());
+        }
+        int strength = calibrate(config.getTargetHashTime().toMillis(), config.getMinStrength(), config.getMaxStrength());
+        log.info("BCrypt cost calibrated to {} for a target of {} ms", strength, config.getTargetHashTime().toMillis());
+        return new CalibratedBCryptPasswordEncoder(strength);
+    }
+
+    /**
+     * Highest cost in [min, max] whose hash takes at most targetMillis on this machine (min if none does)
+     */
+    static int calibrate(long targetMillis, int min, int max) {
+        // warm up so the first measurement is not dominated by class loading and the interpreter
+        new BCryptPasswordEncoder(4).encode(SAMPLE_PASSWORD);
+
+        int chosen = min;
+        for (int cost = min; cost <= max; cost++) {
+            long elapsedMillis = time(cost);
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            chosen = cost;
+            // each step doubles the work; stop early if the next one would clearly overshoot
+            if (elapsedMillis * 2 > targetMillis) {
+                break;
+            }
+        }
+        return chosen;
+    }
+
+    private static long time(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode(SAMPLE_PASSWORD);
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost != strength;
+    }
+
+    /**
+     * Cost of a "$2a$NN$..." hash, or -1 if it is not a BCrypt hash
+     */
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7
+                || encodedPassword.charAt(0) != '$' || encodedPassword.charAt(3) != '$'
+                || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char ones = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
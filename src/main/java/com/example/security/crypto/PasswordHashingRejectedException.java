@@ -0,0 +1,21 @@
+package com.example.security.crypto;
+
+import java.time.Duration;
+
+/**
+ * Thrown when the password hashing executor is saturated and cannot take more work.
+ * Mapped to 503 Service Unavailable with a Retry-After header.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
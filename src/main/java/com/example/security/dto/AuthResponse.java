@@ -19,6 +19,7 @@ public class AuthResponse {
         this.username = username;
         this.role = role;
         this.success = success;
+        this.token = token;
     }
 
     // Static factory methods for common responses
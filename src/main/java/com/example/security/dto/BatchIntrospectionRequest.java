@@ -0,0 +1,25 @@
+package com.example.security.dto;
+
+import java.util.List;
+
+/**
+ * DTO for batch token introspection requests
+ */
+public class BatchIntrospectionRequest {
+    
+    private List<String> tokens;
+    
+    public BatchIntrospectionRequest() {}
+    
+    public BatchIntrospectionRequest(List<String> tokens) {
+        this.tokens = tokens;
+    }
+    
+    public List<String> getTokens() {
+        return tokens;
+    }
+    
+    public void setTokens(List<String> tokens) {
+        this.tokens = tokens;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.security.dto;
+
+/**
+ * DTO for logout requests
+ */
+public class LogoutRequest {
+    private String refreshToken;
+
+    // Default constructor
+    public LogoutRequest() {}
+
+    // Constructor with fields
+    public LogoutRequest(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+
+    // Getters and Setters
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public void setRefreshToken(String refreshToken) {
+        this.refreshToken = refreshToken;
+    }
+}
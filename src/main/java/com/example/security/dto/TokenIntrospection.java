@@ -0,0 +1,59 @@
+package com.example.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * Token Introspection DTO
+ * Result for one token of a batch; index is its position in the request, because results
+ * are streamed in completion order. Inactive tokens carry nothing but index and active=false.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospection {
+    
+    private final int index;
+    private final boolean active;
+    private final String sub;
+    private final List<String> roles;
+    private final Long exp;
+    
+    private TokenIntrospection(int index, boolean active, String sub, List<String> roles, Long exp) {
+        this.index = index;
+        this.active = active;
+        this.sub = sub;
+        this.roles = roles;
+        this.exp = exp;
+    }
+    
+    /**
+     * @param exp expiry in epoch seconds, as in the token
+     */
+    public static TokenIntrospection active(int index, String sub, List<String> roles, long exp) {
+        return new TokenIntrospection(index, true, sub, roles, exp);
+    }
+    
+    public static TokenIntrospection inactive(int index) {
+        return new TokenIntrospection(index, false, null, null, null);
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public String getSub() {
+        return sub;
+    }
+    
+    public List<String> getRoles() {
+        return roles;
+    }
+    
+    public Long getExp() {
+        return exp;
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.security.dto;
+
+import com.example.security.entity.RoleMask;
+import com.example.security.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of an authenticated user
+ *
+ * Carries only what Spring Security needs (username, password hash, account flags, roles)
+ * and precomputes the authorities once, so it can be shared freely between requests and
+ * threads, unlike the managed User entity. Role sets made only of Role values use the shared
+ * per-combination name set and authority list of RoleMask instead of allocating their own.
+ */
+public final class UserPrincipal implements UserDetails {
+
+    // Bits of the "flags" token claim
+    public static final int ENABLED = 1;
+    public static final int ACCOUNT_NON_EXPIRED = 1 << 1;
+    public static final int ACCOUNT_NON_LOCKED = 1 << 2;
+    public static final int CREDENTIALS_NON_EXPIRED = 1 << 3;
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final String username;
+    private final String password;
+    private final Set<String> roles;
+    private final int roleMask;
+    private final int flags;
+    private final List<GrantedAuthority> authorities;
+
+    public UserPrincipal(String username, String password, Collection<String> roles, int flags) {
+        this.username = username;
+        this.password = password;
+        this.flags = flags;
+        this.roleMask = RoleMask.tryOf(roles);
+        if (roleMask >= 0) {
+            this.roles = RoleMask.names(roleMask);
+            this.authorities = RoleMask.authorities(roleMask);
+            return;
+        }
+
+        // roles outside the Role enum (e.g. claims of a foreign token): build our own
+        this.roles = Collections.unmodifiableSet(new LinkedHashSet<>(roles));
+        List<GrantedAuthority> granted = new ArrayList<>(this.roles.size());
+        for (String role : this.roles) {
+            granted.add(new SimpleGrantedAuthority(ROLE_PREFIX + role));
+        }
+        this.authorities = Collections.unmodifiableList(granted);
+    }
+
+    public UserPrincipal(String username, String password, int roleMask, int flags) {
+        this.username = username;
+        this.password = password;
+        this.flags = flags;
+        this.roleMask = roleMask;
+        this.roles = RoleMask.names(roleMask);
+        this.authorities = RoleMask.authorities(roleMask);
+    }
+
+    /**
+     * Snapshot any UserDetails (e.g. the User entity)
+     */
+    public static UserPrincipal from(UserDetails userDetails) {
+        if (userDetails instanceof UserPrincipal principal) {
+            return principal;
+        }
+        if (userDetails instanceof User user) {
+            return new UserPrincipal(user.getUsername(), user.getPassword(), user.getRoleMask(), flagsOf(user));
+        }
+        return new UserPrincipal(
+            userDetails.getUsername(),
+            userDetails.getPassword(),
+            rolesOf(userDetails),
+            flagsOf(userDetails)
+        );
+    }
+
+    /**
+     * Role names (without the ROLE_ prefix) of any UserDetails
+     */
+    public static List<String> rolesOf(UserDetails userDetails) {
+        List<String> roles = new ArrayList<>();
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                roles.add(name.substring(ROLE_PREFIX.length()));
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * Account flags of any UserDetails packed into the bits above
+     */
+    public static int flagsOf(UserDetails userDetails) {
+        int flags = 0;
+        if (userDetails.isEnabled()) flags |= ENABLED;
+        if (userDetails.isAccountNonExpired()) flags |= ACCOUNT_NON_EXPIRED;
+        if (userDetails.isAccountNonLocked()) flags |= ACCOUNT_NON_LOCKED;
+        if (userDetails.isCredentialsNonExpired()) flags |= CREDENTIALS_NON_EXPIRED;
+        return flags;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Role bitmask (see RoleMask), or -1 if the roles are not all Role values
+     */
+    public int getRoleMask() {
+        return roleMask;
+    }
+
+    public int getFlags() {
+        return flags;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return (flags & ACCOUNT_NON_EXPIRED) != 0;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return (flags & ACCOUNT_NON_LOCKED) != 0;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return (flags & CREDENTIALS_NON_EXPIRED) != 0;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return (flags & ENABLED) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal{" +
+                "username='" + username + '\'' +
+                ", roles=" + roles +
+                ", flags=" + flags +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.security.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Refresh Token Entity
+ *
+ * Server-side record of one issued refresh token (keyed by its jti). Tokens that were rotated
+ * from one another share a family id; a family is a single login session.
+ *
+ * Status lifecycle: ACTIVE -> CONSUMED when it is exchanged for a new pair,
+ * or -> REVOKED when any token of its family is replayed.
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+    @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+    @Index(name = "idx_refresh_tokens_username", columnList = "username")
+})
+public class RefreshToken {
+
+    public enum Status { ACTIVE, CONSUMED, REVOKED }
+
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.ACTIVE;
+
+    // Default constructor required by JPA
+    public RefreshToken() {}
+
+    public RefreshToken(String tokenId, String familyId, String username, long expiresAt) {
+        this.tokenId = tokenId;
+        this.familyId = familyId;
+        this.username = username;
+        this.expiresAt = expiresAt;
+    }
+
+    // Getters and Setters
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public void setFamilyId(String familyId) {
+        this.familyId = familyId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public boolean isActive() {
+        return status == Status.ACTIVE;
+    }
+
+    @Override
+    public String toString() {
+        return "RefreshToken{" +
+                "tokenId='" + tokenId + '\'' +
+                ", familyId='" + familyId + '\'' +
+                ", username='" + username + '\'' +
+                ", expiresAt=" + expiresAt +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -3,22 +3,32 @@ package com.example.security.entity;
 /**
  * Role Enum
  * Defines all available roles in the application
+ *
+ * Each role owns one bit of the users.role_mask column (see RoleMask). The bits are
+ * persisted: give a new role the next free bit and never reuse or reorder existing ones.
  */
 public enum Role {
-    USER("USER"),
-    ADMIN("ADMIN"),
-    MODERATOR("MODERATOR");
+    USER("USER", 1),
+    ADMIN("ADMIN", 1 << 1),
+    MODERATOR("MODERATOR", 1 << 2),
+    GATEWAY("GATEWAY", 1 << 3);      // service accounts of API gateways (token introspection)
 
     private final String value;
+    private final int mask;
 
-    Role(String value) {
+    Role(String value, int mask) {
         this.value = value;
+        this.mask = mask;
     }
 
     public String getValue() {
         return value;
     }
 
+    public int getMask() {
+        return mask;
+    }
+
     @Override
     public String toString() {
         return value;
@@ -0,0 +1,139 @@
+package com.example.security.entity;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Role Mask
+ *
+ * A user's roles as a bitmask of Role bits (users.role_mask), plus one shared, immutable
+ * role-name set and authority list per possible combination, built once at class load.
+ * Resolving the authorities of a mask is an array lookup: no streams, no new
+ * SimpleGrantedAuthority or collection per call. Names and authorities are in Role order.
+ */
+public final class RoleMask {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private static final Role[] ROLES = Role.values();
+    private static final Map<String, Role> BY_NAME = new HashMap<>();
+    private static final int ALL;
+    private static final Set<String>[] NAMES;
+    private static final List<GrantedAuthority>[] AUTHORITIES;
+
+    static {
+        int all = 0;
+        for (Role role : Role.values()) {
+            BY_NAME.put(role.getValue(), role);
+            all |= role.getMask();
+        }
+        ALL = all;
+
+        int combinations = Integer.highestOneBit(all) << 1;
+        @SuppressWarnings("unchecked")
+        Set<String>[] names = new Set[combinations];
+        @SuppressWarnings("unchecked")
+        List<GrantedAuthority>[] authorities = new List[combinations];
+        Map<Role, GrantedAuthority> granted = new HashMap<>();
+        for (int mask = 0; mask < combinations; mask++) {
+            Set<String> roleNames = new LinkedHashSet<>();
+            List<GrantedAuthority> roleAuthorities = new ArrayList<>();
+            for (Role role : Role.values()) {
+                if ((mask & role.getMask()) != 0) {
+                    roleNames.add(role.getValue());
+                    // one authority instance per role, shared by every combination
+                    roleAuthorities.add(granted.computeIfAbsent(role,
+                            r -> new SimpleGrantedAuthority(ROLE_PREFIX + r.getValue())));
+                }
+            }
+            names[mask] = Collections.unmodifiableSet(roleNames);
+            authorities[mask] = Collections.unmodifiableList(roleAuthorities);
+        }
+        NAMES = names;
+        AUTHORITIES = authorities;
+    }
+
+    private RoleMask() {
+    }
+
+    /**
+     * Mask of role names
+     *
+     * @throws IllegalArgumentException if a name is not a Role
+     */
+    public static int of(Collection<String> roleNames) {
+        int mask = 0;
+        for (String name : roleNames) {
+            Role role = name != null ? BY_NAME.get(name.trim().toUpperCase(Locale.ROOT)) : null;
+            if (role == null) {
+                throw new IllegalArgumentException("Unknown role: " + name);
+            }
+            mask |= role.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Mask of role names, or -1 if any of them is not a Role
+     */
+    public static int tryOf(Collection<String> roleNames) {
+        int mask = 0;
+        for (String name : roleNames) {
+            Role role = BY_NAME.get(name);
+            if (role == null) {
+                return -1;
+            }
+            mask |= role.getMask();
+        }
+        return mask;
+    }
+
+    /**
+     * Bit of a granted authority such as "ROLE_ADMIN", or 0 if it is not a Role authority.
+     * Does not allocate.
+     */
+    public static int ofAuthority(String authority) {
+        if (authority == null || !authority.startsWith(ROLE_PREFIX)) {
+            return 0;
+        }
+        int length = authority.length() - ROLE_PREFIX.length();
+        for (Role role : ROLES) {
+            String name = role.getValue();
+            if (name.length() == length && authority.regionMatches(ROLE_PREFIX.length(), name, 0, length)) {
+                return role.getMask();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Shared immutable set of the role names in a mask
+     */
+    public static Set<String> names(int mask) {
+        return NAMES[check(mask)];
+    }
+
+    /**
+     * Shared immutable list of the ROLE_ authorities of a mask
+     */
+    public static List<GrantedAuthority> authorities(int mask) {
+        return AUTHORITIES[check(mask)];
+    }
+
+    private static int check(int mask) {
+        if ((mask & ~ALL) != 0) {
+            throw new IllegalArgumentException("Unknown role bits: " + Integer.toBinaryString(mask & ~ALL));
+        }
+        return mask;
+    }
+}
@@ -2,13 +2,11 @@ package com.example.security.entity;
 
 import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * User Entity Class
@@ -19,12 +17,12 @@ import java.util.stream.Collectors;
  * Key Features:
  * - Implements UserDetails for Spring Security integration
  * - Uses JPA annotations for database mapping
- * - Manages roles as a collection of strings
- * - Uses FetchType.EAGER for roles to avoid LazyInitializationException
+ * - Stores roles as a bitmask of Role bits (role_mask); authorities are shared per combination
  * 
  * Database Schema:
- * - users table: id, username, password, email, enabled
- * - user_roles table: user_id, roles (many-to-many relationship)
+ * - users table: id, username, password, email, enabled, role_mask
+ * - user_roles table: user_id, role - compatibility copy of role_mask for external readers,
+ *   written on every role change but never read by the application (LAZY, not fetched)
  */
 @Entity
 @Table(name = "users")
@@ -68,7 +66,10 @@ public class User implements UserDetails {
     @Column(name = "picture_url")
     private String pictureUrl; // Profile picture URL
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @Column(name = "role_mask", nullable = false)
+    private int roleMask;
+
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
     @Column(name = "role")
     private Set<String> roles;
@@ -81,7 +82,7 @@ public class User implements UserDetails {
         this.username = username;
         this.password = password;
         this.email = email;
-        this.roles = roles;
+        setRoles(roles);
         this.enabled = true;
     }
 
@@ -94,8 +95,7 @@ public class User implements UserDetails {
         this.oauth2Id = oauth2Id;
         this.name = name;
         this.pictureUrl = pictureUrl;
-        this.roles = new HashSet<>();
-        this.roles.add("USER");
+        setRoleMask(Role.USER.getMask());
         this.enabled = true;
     }
 
@@ -128,12 +128,32 @@ public class User implements UserDetails {
         this.enabled = enabled;
     }
 
+    public void setAccountNonLocked(boolean accountNonLocked) {
+        this.accountNonLocked = accountNonLocked;
+    }
+
+    /**
+     * Role names, derived from the role mask (shared and immutable, use setRoles/addRole to change)
+     */
     public Set<String> getRoles() {
-        return roles;
+        return RoleMask.names(roleMask);
     }
 
+    /**
+     * @throws IllegalArgumentException if a name is not a Role
+     */
     public void setRoles(Set<String> roles) {
-        this.roles = roles;
+        setRoleMask(roles != null ? RoleMask.of(roles) : 0);
+    }
+
+    public int getRoleMask() {
+        return roleMask;
+    }
+
+    public void setRoleMask(int roleMask) {
+        this.roleMask = roleMask;
+        // keep the user_roles compatibility copy in step, without loading it
+        this.roles = new HashSet<>(RoleMask.names(roleMask));
     }
 
     // OAuth2 getters and setters
@@ -175,41 +195,33 @@ public class User implements UserDetails {
     }
 
     public boolean hasRole(String role) {
-        return roles != null && roles.contains(role);
+        return getRoles().contains(role);
     }
 
     public boolean hasAnyRole(String... roles) {
-        if (this.roles == null) return false;
         for (String role : roles) {
-            if (this.roles.contains(role)) return true;
+            if (hasRole(role)) return true;
         }
         return false;
     }
 
     public void addRole(String role) {
-        if (roles == null) {
-            roles = new HashSet<>();
-        }
-        roles.add(role);
+        setRoleMask(roleMask | RoleMask.of(Set.of(role)));
     }
 
     public void removeRole(String role) {
-        if (roles != null) {
-            roles.remove(role);
-        }
+        setRoleMask(roleMask & ~RoleMask.of(Set.of(role)));
     }
 
     // UserDetails Interface Implementation
 
     /**
      * Returns the authorities granted to the user.
-     * Converts our role strings to Spring Security GrantedAuthority objects.
+     * The shared, precomputed ROLE_ authority list of the user's role combination.
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return roles.stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role))
-                .collect(Collectors.toSet());
+        return RoleMask.authorities(roleMask);
     }
 
     /**
@@ -270,7 +282,7 @@ public class User implements UserDetails {
                 ", username='" + username + '\'' +
                 ", email='" + email + '\'' +
                 ", enabled=" + enabled +
-                ", roles=" + roles +
+                ", roles=" + getRoles() +
                 ", oauth2Provider='" + oauth2Provider + '\'' +
                 ", name='" + name + '\'' +
                 '}';
@@ -0,0 +1,288 @@
+package com.example.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * HMAC JWT Issuer
+ *
+ * Template-based minting of the HS256 access and refresh tokens, in place of jjwt's builder
+ * (a claims HashMap, two Dates, a JwtBuilder and a Jackson serialization per token):
+ *
+ * - the encoded header ("kid" + "alg") is computed once per signing key and reused
+ * - the constant claims (type, issuer) are kept as ready JSON bytes
+ * - the remaining claims are written by hand into a per-thread buffer, base64url-encoded
+ *   in place and signed with the per-thread Mac (HmacSha256)
+ *
+ * The output is an ordinary compact JWS that jjwt and HmacJwtVerifier both accept.
+ * issue() returns null when the active key is not HS256 and the caller uses jjwt instead.
+ */
+final class HmacJwtIssuer {
+
+    private static final byte[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final SigningKeyRing keyRing;
+    private final byte[] accessPrefix;
+    private final byte[] refreshPrefix;
+    private final byte[] issuerClaim;
+    private volatile Header header;
+
+    HmacJwtIssuer(SigningKeyRing keyRing, String issuer) {
+        this.keyRing = keyRing;
+        this.accessPrefix = json("{\"type\":\"" + VerifiedToken.ACCESS + "\"");
+        this.refreshPrefix = json("{\"type\":\"" + VerifiedToken.REFRESH + "\"");
+        this.issuerClaim = issuer != null ? json(",\"iss\":" + quote(issuer)) : new byte[0];
+    }
+
+    /**
+     * Mint a signed token
+     *
+     * @param type VerifiedToken.ACCESS or VerifiedToken.REFRESH
+     * @param roles role names to embed, or null
+     * @param flags packed account flags to embed, or -1
+     * @param authTimeMillis login time to embed as auth_time, or 0
+     * @return the compact token, or null if the active key is not an HS256 key
+     */
+    String issue(String type, String subject, Collection<String> roles, int flags,
+                 String tokenId, long issuedAtMillis, long expiresAtMillis, long authTimeMillis) {
+        Header current = header();
+        if (current == null) {
+            return null;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        scratch.reset();
+        scratch.append(VerifiedToken.REFRESH.equals(type) ? refreshPrefix : accessPrefix);
+        if (roles != null) {
+            scratch.append(",\"roles\":[");
+            boolean first = true;
+            for (String role : roles) {
+                if (!first) {
+                    scratch.append(',');
+                }
+                scratch.appendString(role);
+                first = false;
+            }
+            scratch.append(']');
+        }
+        if (flags >= 0) {
+            scratch.append(",\"flags\":").appendLong(flags);
+        }
+        scratch.append(",\"jti\":").appendString(tokenId);
+        scratch.append(",\"sub\":").appendString(subject);
+        scratch.append(issuerClaim);
+        // jjwt stores NumericDates in whole seconds, so do we
+        scratch.append(",\"iat\":").appendLong(issuedAtMillis / 1000);
+        scratch.append(",\"exp\":").appendLong(expiresAtMillis / 1000);
+        if (authTimeMillis > 0) {
+            scratch.append(",\"" + VerifiedToken.AUTH_TIME + "\":").appendLong(authTimeMillis / 1000);
+        }
+        scratch.append('}');
+
+        byte[] out = scratch.out(current.encoded.length + encodedLength(scratch.length) + 1 + 43);
+        System.arraycopy(current.encoded, 0, out, 0, current.encoded.length);
+        int position = encode(scratch.json, scratch.length, out, current.encoded.length);
+        if (!HmacSha256.sign(current.key.getSigningKey(), out, 0, position, scratch.signature)) {
+            return null;
+        }
+        out[position++] = '.';
+        position = encode(scratch.signature, HmacSha256.LENGTH, out, position);
+        return new String(out, 0, position, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Encoded header (with the trailing dot) of the active key, rebuilt after a rotation
+     */
+    private Header header() {
+        SigningKey active = keyRing.active();
+        Header current = header;
+        if (current != null && current.key == active) {
+            return current;
+        }
+        if (!"HS256".equals(active.getAlgorithm().getValue())) {
+            return null;
+        }
+        byte[] json = json("{\"kid\":" + quote(active.getKid()) + ",\"alg\":\"HS256\"}");
+        byte[] encoded = new byte[encodedLength(json.length) + 1];
+        int position = encode(json, json.length, encoded, 0);
+        encoded[position] = '.';
+        current = new Header(active, encoded);
+        header = current;
+        return current;
+    }
+
+    private static int encodedLength(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * base64url without padding of in[0, length) into out starting at position
+     *
+     * @return the position after the last written byte
+     */
+    private static int encode(byte[] in, int length, byte[] out, int position) {
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int bits = (in[i] & 0xff) << 16 | (in[i + 1] & 0xff) << 8 | (in[i + 2] & 0xff);
+            out[position++] = BASE64URL[bits >>> 18];
+            out[position++] = BASE64URL[(bits >>> 12) & 0x3f];
+            out[position++] = BASE64URL[(bits >>> 6) & 0x3f];
+            out[position++] = BASE64URL[bits & 0x3f];
+        }
+        if (length - i == 1) {
+            int bits = (in[i] & 0xff) << 16;
+            out[position++] = BASE64URL[bits >>> 18];
+            out[position++] = BASE64URL[(bits >>> 12) & 0x3f];
+        } else if (length - i == 2) {
+            int bits = (in[i] & 0xff) << 16 | (in[i + 1] & 0xff) << 8;
+            out[position++] = BASE64URL[bits >>> 18];
+            out[position++] = BASE64URL[(bits >>> 12) & 0x3f];
+            out[position++] = BASE64URL[(bits >>> 6) & 0x3f];
+        }
+        return position;
+    }
+
+    private static byte[] json(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * JSON string literal, only used for the precomputed parts
+     */
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static final class Header {
+
+        private final SigningKey key;
+        private final byte[] encoded;
+
+        Header(SigningKey key, byte[] encoded) {
+            this.key = key;
+            this.encoded = encoded;
+        }
+    }
+
+    /**
+     * Per-thread claim and output buffers, reused across tokens
+     */
+    private static final class Scratch {
+
+        private final byte[] signature = new byte[HmacSha256.LENGTH];
+        private byte[] json = new byte[512];
+        private byte[] out = new byte[1024];
+        private int length;
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] out(int capacity) {
+            if (out.length < capacity) {
+                out = new byte[Integer.highestOneBit(capacity) << 1];
+            }
+            return out;
+        }
+
+        Scratch append(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, json, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        Scratch append(String ascii) {
+            ensure(ascii.length());
+            for (int i = 0; i < ascii.length(); i++) {
+                json[length++] = (byte) ascii.charAt(i);
+            }
+            return this;
+        }
+
+        Scratch append(char c) {
+            ensure(1);
+            json[length++] = (byte) c;
+            return this;
+        }
+
+        Scratch appendLong(long value) {
+            ensure(20);
+            if (value == 0) {
+                json[length++] = '0';
+                return this;
+            }
+            int start = length;
+            while (value > 0) {
+                json[length++] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte b = json[i];
+                json[i] = json[j];
+                json[j] = b;
+            }
+            return this;
+        }
+
+        /**
+         * JSON string literal, UTF-8 encoded, escaping quotes, backslashes and control characters
+         */
+        Scratch appendString(String value) {
+            ensure(value.length() * 6 + 2);
+            json[length++] = '"';
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    json[length++] = '\\';
+                    json[length++] = (byte) c;
+                } else if (c < 0x20) {
+                    json[length++] = '\\';
+                    json[length++] = 'u';
+                    json[length++] = '0';
+                    json[length++] = '0';
+                    json[length++] = (byte) HEX[c >> 4];
+                    json[length++] = (byte) HEX[c & 0xf];
+                } else if (c < 0x80) {
+                    json[length++] = (byte) c;
+                } else {
+                    // rare (non-ASCII usernames): let the JDK do the UTF-8 encoding
+                    int end = i + 1;
+                    while (end < value.length() && value.charAt(end) >= 0x80) {
+                        end++;
+                    }
+                    byte[] utf8 = value.substring(i, end).getBytes(StandardCharsets.UTF_8);
+                    ensure(utf8.length);
+                    System.arraycopy(utf8, 0, json, length, utf8.length);
+                    length += utf8.length;
+                    i = end - 1;
+                }
+            }
+            json[length++] = '"';
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > json.length) {
+                byte[] grown = new byte[Integer.highestOneBit(length + extra) << 1];
+                System.arraycopy(json, 0, grown, 0, length);
+                json = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.example.security.jwt;
+
+import io.jsonwebtoken.security.SignatureException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * HMAC JWT Verifier
+ *
+ * Fast path for verifying the HS256 tokens this service issues, in place of jjwt's generic
+ * parser (which decodes into Strings, runs Jackson and fills a HashMap-backed Claims only for
+ * us to read a handful of claims):
+ *
+ * - the compact token is split in place, nothing is substring'ed
+ * - the HMAC is computed over the header.payload bytes with a per-thread Mac (HmacSha256),
+ *   and compared with the signature in constant time
+ * - header and payload are base64url-decoded into per-thread buffers and scanned once,
+ *   picking out only the claims VerifiedToken needs
+ *
+ * Anything this verifier does not fully understand - other algorithms, unknown header
+ * parameters, nbf, escaped strings, nested values, expired tokens - returns null and the
+ * caller falls back to jjwt, which then produces the usual result or exception.
+ * A signature mismatch on a well-formed HS256 token is final and throws right away.
+ */
+final class HmacJwtVerifier {
+
+    private static final int SIGNATURE_LENGTH = HmacSha256.LENGTH;
+
+    private static final byte[] ALG = ascii("alg");
+    private static final byte[] KID = ascii("kid");
+    private static final byte[] TYP = ascii("typ");
+    private static final byte[] HS256 = ascii("HS256");
+
+    private static final byte[] SUB = ascii("sub");
+    private static final byte[] JTI = ascii("jti");
+    private static final byte[] ISS = ascii("iss");
+    private static final byte[] IAT = ascii("iat");
+    private static final byte[] EXP = ascii("exp");
+    private static final byte[] TYPE = ascii("type");
+    private static final byte[] ROLE = ascii("role");
+    private static final byte[] ROLES = ascii("roles");
+    private static final byte[] FLAGS = ascii("flags");
+    private static final byte[] AUTH_TIME = ascii(VerifiedToken.AUTH_TIME);
+
+    /** base64url alphabet -> 6-bit value, -1 for anything else */
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final SigningKeyRing keyRing;
+
+    HmacJwtVerifier(SigningKeyRing keyRing) {
+        this.keyRing = keyRing;
+    }
+
+    /**
+     * @return the verified claims, or null if the token has to go through jjwt
+     * @throws SignatureException if a well-formed HS256 token's signature does not match
+     */
+    VerifiedToken verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int length = token.length();
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0 || length - secondDot - 1 != 43) {
+            return null; // not a JWS with a 32 byte signature
+        }
+
+        Scratch scratch = SCRATCH.get();
+        byte[] bytes = scratch.bytes(length);
+        for (int i = 0; i < length; i++) {
+            char c = token.charAt(i);
+            if (c > 127) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+
+        // header: only alg=HS256, kid and typ are understood
+        byte[] json = scratch.json(firstDot);
+        int headerLength = decode(bytes, 0, firstDot, json);
+        if (headerLength < 0) {
+            return null;
+        }
+        SigningKey key = scanHeader(json, headerLength);
+        if (key == null) {
+            return null;
+        }
+
+        // signature over the ASCII of header.payload, compared in constant time
+        int signatureLength = decode(bytes, secondDot + 1, length, scratch.signature);
+        if (signatureLength != SIGNATURE_LENGTH || !scratch.sign(key.getVerificationKey(), bytes, secondDot)) {
+            return null;
+        }
+        if (!MessageDigest.isEqual(scratch.expected, scratch.signature)) {
+            throw new SignatureException("JWT signature does not match locally computed signature.");
+        }
+
+        // payload
+        json = scratch.json(secondDot - firstDot - 1);
+        int payloadLength = decode(bytes, firstDot + 1, secondDot, json);
+        if (payloadLength < 0) {
+            return null;
+        }
+        VerifiedToken verified = new ClaimScanner(json, payloadLength, key.getKid()).scan();
+        if (verified == null || verified.isExpired(System.currentTimeMillis())) {
+            return null; // let jjwt raise ExpiredJwtException with the usual details
+        }
+        return verified;
+    }
+
+    private SigningKey scanHeader(byte[] json, int length) {
+        JsonCursor cursor = new JsonCursor(json, length);
+        boolean hs256 = false;
+        String kid = null;
+        if (!cursor.beginObject()) {
+            return null;
+        }
+        while (cursor.nextKey()) {
+            if (cursor.keyIs(ALG)) {
+                hs256 = cursor.stringValueIs(HS256);
+            } else if (cursor.keyIs(KID)) {
+                kid = cursor.stringValue();
+                if (kid == null) {
+                    return null;
+                }
+            } else if (cursor.keyIs(TYP)) {
+                if (cursor.stringValue() == null) {
+                    return null;
+                }
+            } else {
+                return null; // crit, zip, jku, ... are jjwt's business
+            }
+        }
+        if (!hs256 || !cursor.endObject()) {
+            return null;
+        }
+        SigningKey key = keyRing.find(kid);
+        return key != null && key.getAlgorithm().getValue().equals("HS256") ? key : null;
+    }
+
+    /**
+     * Decode base64url (no padding) from bytes[from, to) into out
+     *
+     * @return number of bytes written, or -1 if the input is not valid base64url or does not fit
+     */
+    static int decode(byte[] bytes, int from, int to, byte[] out) {
+        int length = to - from;
+        if (length % 4 == 1) {
+            return -1;
+        }
+        int outLength = length * 3 / 4;
+        if (outLength > out.length) {
+            return -1;
+        }
+        int accumulator = 0;
+        int bits = 0;
+        int position = 0;
+        for (int i = from; i < to; i++) {
+            int value = BASE64URL[bytes[i]];
+            if (value < 0) {
+                return -1;
+            }
+            accumulator = (accumulator << 6) | value;
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[position++] = (byte) (accumulator >> bits);
+            }
+        }
+        // canonical encodings only: the unused trailing bits must be zero
+        if ((accumulator & ((1 << bits) - 1)) != 0) {
+            return -1;
+        }
+        return position;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Pulls the claims VerifiedToken needs out of the payload in a single pass
+     */
+    private static final class ClaimScanner {
+
+        private final JsonCursor cursor;
+        private final String kid;
+
+        ClaimScanner(byte[] json, int length, String kid) {
+            this.cursor = new JsonCursor(json, length);
+            this.kid = kid;
+        }
+
+        VerifiedToken scan() {
+            String id = null;
+            String subject = null;
+            String type = null;
+            String role = null;
+            List<String> roles = null;
+            long flags = -1;
+            long issuedAt = -1;
+            long expiresAt = -1;
+            long authTime = -1;
+
+            if (!cursor.beginObject()) {
+                return null;
+            }
+            while (cursor.nextKey()) {
+                if (cursor.keyIs(SUB)) {
+                    subject = cursor.stringValue();
+                    if (subject == null) return null;
+                } else if (cursor.keyIs(EXP)) {
+                    expiresAt = cursor.longValue();
+                    if (expiresAt < 0) return null;
+                } else if (cursor.keyIs(IAT)) {
+                    issuedAt = cursor.longValue();
+                    if (issuedAt < 0) return null;
+                } else if (cursor.keyIs(JTI)) {
+                    id = cursor.stringValue();
+                    if (id == null) return null;
+                } else if (cursor.keyIs(TYPE)) {
+                    type = cursor.stringValue();
+                    if (type == null) return null;
+                } else if (cursor.keyIs(ROLE)) {
+                    role = cursor.stringValue();
+                    if (role == null) return null;
+                } else if (cursor.keyIs(ROLES)) {
+                    roles = cursor.stringArrayValue();
+                    if (roles == null) return null;
+                } else if (cursor.keyIs(FLAGS)) {
+                    flags = cursor.longValue();
+                    if (flags < 0 || flags > Integer.MAX_VALUE) return null;
+                } else if (cursor.keyIs(AUTH_TIME)) {
+                    authTime = cursor.longValue();
+                    if (authTime < 0) return null;
+                } else if (cursor.keyIs(ISS)) {
+                    if (cursor.stringValue() == null) return null;
+                } else {
+                    return null; // nbf and anything unexpected go through jjwt
+                }
+            }
+            if (!cursor.endObject() || expiresAt < 0) {
+                return null;
+            }
+            return new VerifiedToken(id, subject, type, role, roles, (int) flags,
+                    issuedAt >= 0 ? issuedAt * 1000 : 0L, expiresAt * 1000, kid,
+                    authTime >= 0 ? authTime * 1000 : 0L);
+        }
+    }
+
+    /**
+     * Minimal forward-only reader for flat JSON objects with string, unsigned integer
+     * and string-array values. Every method returns a failure marker instead of throwing.
+     */
+    private static final class JsonCursor {
+
+        private final byte[] json;
+        private final int length;
+        private int position;
+        private int keyStart;
+        private int keyEnd;
+        private int stringStart;
+        private int stringEnd;
+        private boolean first = true;
+
+        JsonCursor(byte[] json, int length) {
+            this.json = json;
+            this.length = length;
+        }
+
+        boolean beginObject() {
+            skipWhitespace();
+            return position < length && json[position++] == '{';
+        }
+
+        boolean endObject() {
+            skipWhitespace();
+            if (position >= length || json[position++] != '}') {
+                return false;
+            }
+            skipWhitespace();
+            return position == length;
+        }
+
+        /**
+         * Advance to the next key and past its colon
+         *
+         * @return false at the end of the object (or on malformed input, which endObject() then rejects)
+         */
+        boolean nextKey() {
+            skipWhitespace();
+            if (position >= length || json[position] == '}') {
+                return false;
+            }
+            if (!first) {
+                if (json[position++] != ',') {
+                    position = length;
+                    return false;
+                }
+                skipWhitespace();
+            }
+            first = false;
+            if (!string()) {
+                position = length;
+                return false;
+            }
+            keyStart = stringStart;
+            keyEnd = stringEnd;
+            skipWhitespace();
+            if (position >= length || json[position++] != ':') {
+                position = length;
+                return false;
+            }
+            skipWhitespace();
+            return true;
+        }
+
+        boolean keyIs(byte[] name) {
+            return equals(keyStart, keyEnd, name);
+        }
+
+        String stringValue() {
+            if (!string()) {
+                return null;
+            }
+            return new String(json, stringStart, stringEnd - stringStart, StandardCharsets.UTF_8);
+        }
+
+        boolean stringValueIs(byte[] expected) {
+            return string() && equals(stringStart, stringEnd, expected);
+        }
+
+        /**
+         * @return the value, or -1 if it is not a plain non-negative integer
+         */
+        long longValue() {
+            long value = 0;
+            int start = position;
+            while (position < length && json[position] >= '0' && json[position] <= '9') {
+                if (position - start >= 18) {
+                    return -1;
+                }
+                value = value * 10 + (json[position++] - '0');
+            }
+            if (position == start || (position < length && (json[position] == '.'
+                    || json[position] == 'e' || json[position] == 'E'))) {
+                return -1;
+            }
+            return value;
+        }
+
+        List<String> stringArrayValue() {
+            if (position >= length || json[position++] != '[') {
+                return null;
+            }
+            List<String> values = new ArrayList<>(4);
+            skipWhitespace();
+            if (position < length && json[position] == ']') {
+                position++;
+                return values;
+            }
+            while (true) {
+                skipWhitespace();
+                String value = stringValue();
+                if (value == null) {
+                    return null;
+                }
+                values.add(value);
+                skipWhitespace();
+                if (position >= length) {
+                    return null;
+                }
+                byte next = json[position++];
+                if (next == ']') {
+                    return values;
+                }
+                if (next != ',') {
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Read a string without escapes; strings with escapes are left to jjwt
+         */
+        private boolean string() {
+            if (position >= length || json[position] != '"') {
+                return false;
+            }
+            int start = ++position;
+            while (position < length) {
+                byte b = json[position];
+                if (b == '"') {
+                    stringStart = start;
+                    stringEnd = position++;
+                    return true;
+                }
+                if (b == '\\' || (b >= 0 && b < 0x20)) {
+                    return false;
+                }
+                position++;
+            }
+            return false;
+        }
+
+        private boolean equals(int start, int end, byte[] expected) {
+            if (end - start != expected.length) {
+                return false;
+            }
+            for (int i = 0; i < expected.length; i++) {
+                if (json[start + i] != expected[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void skipWhitespace() {
+            while (position < length) {
+                byte b = json[position];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                position++;
+            }
+        }
+    }
+
+    /**
+     * Per-thread buffers, reused across tokens
+     */
+    private static final class Scratch {
+
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private final byte[] expected = new byte[SIGNATURE_LENGTH];
+        private byte[] bytes = new byte[1024];
+        private byte[] json = new byte[768];
+
+        byte[] bytes(int length) {
+            if (bytes.length < length) {
+                bytes = new byte[Integer.highestOneBit(length) << 1];
+            }
+            return bytes;
+        }
+
+        byte[] json(int encodedLength) {
+            int decodedLength = encodedLength * 3 / 4;
+            if (json.length < decodedLength) {
+                json = new byte[Integer.highestOneBit(decodedLength) << 1];
+            }
+            return json;
+        }
+
+        /**
+         * HMAC-SHA256 of bytes[0, length) into expected
+         */
+        boolean sign(Key key, byte[] bytes, int length) {
+            return HmacSha256.sign(key, bytes, 0, length, expected);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.security.jwt;
+
+import javax.crypto.Mac;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+
+/**
+ * Per-thread HMAC-SHA256
+ * Mac instances are not thread-safe and costly to create and init, so every thread keeps one,
+ * initialized with the key it used last (keys only change on rotation).
+ */
+final class HmacSha256 {
+
+    static final int LENGTH = 32;
+
+    private static final ThreadLocal<HmacSha256> CURRENT = ThreadLocal.withInitial(HmacSha256::new);
+
+    private Mac mac;
+    private Key key;
+
+    private HmacSha256() {
+    }
+
+    /**
+     * HMAC-SHA256 of data[offset, offset + length) into out[0, 32)
+     *
+     * @return false if the key cannot be used for HmacSHA256
+     */
+    static boolean sign(Key key, byte[] data, int offset, int length, byte[] out) {
+        HmacSha256 state = CURRENT.get();
+        try {
+            if (state.mac == null) {
+                state.mac = Mac.getInstance("HmacSHA256");
+            }
+            if (key != state.key) {
+                state.key = null;
+                state.mac.init(key);
+                state.key = key;
+            }
+            state.mac.update(data, offset, length);
+            state.mac.doFinal(out, 0);
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+}
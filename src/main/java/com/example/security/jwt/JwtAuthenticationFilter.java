@@ -1,5 +1,8 @@
 package com.example.security.jwt;
 
+import com.example.security.authz.PermitAllRoutes;
+import com.example.security.config.JwtConfig;
+import com.example.security.dto.UserPrincipal;
 import com.example.security.service.CustomUserDetailsService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -7,6 +10,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -14,6 +19,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collection;
 
 /**
  * JWT Authentication Filter
@@ -22,12 +28,40 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * Request attribute holding the VerifiedToken the request was authenticated with
+     */
+    public static final String TOKEN_ATTRIBUTE = JwtAuthenticationFilter.class.getName() + ".TOKEN";
+
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenAuthenticationCache tokenCache;
+
+    @Autowired
+    private JwtConfig jwtConfig;
+
+    @Autowired
+    private TokenRevocationService revocationService;
+
+    @Autowired
+    private TokenRenewalService renewalService;
+
+    @Autowired
+    private PermitAllRoutes permitAllRoutes;
+
+    /**
+     * Routes every caller may access need no token work at all (see PermitAllRoutes)
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return permitAllRoutes.skipsTokenProcessing(request);
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                   HttpServletResponse response, 
@@ -36,38 +70,104 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")
+                || SecurityContextHolder.getContext().getAuthentication() != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String jwt = authorizationHeader.substring(7); // Remove "Bearer " prefix
 
-        // Extract JWT from Authorization header
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7); // Remove "Bearer " prefix
-            try {
-                username = jwtTokenUtil.extractUsername(jwt);
-            } catch (Exception e) {
-                // Token is invalid, continue without authentication
-                logger.warn("Invalid JWT token: " + e.getMessage());
+        // Repeat requests with an already verified token skip parsing and HMAC entirely
+        TokenAuthenticationCache.Entry cached = tokenCache.get(jwt);
+        if (cached != null && !revocationService.isRevoked(cached.getToken())) {
+            authenticate(request, cached.getToken(), cached.getPrincipal(), cached.getAuthorities());
+            renew(response, cached.getToken(), cached.getPrincipal());
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        VerifiedToken token = null;
+
+        // Verify the JWT once
+        try {
+            token = jwtTokenUtil.verify(jwt);
+        } catch (Exception e) {
+            // Token is invalid, continue without authentication
+            logger.warn("Invalid JWT token: " + e.getMessage());
+        }
+
+        // Only access tokens authenticate requests: a refresh token is redeemed at /api/auth/refresh
+        if (token != null && !token.isAccessToken()) {
+            token = null;
+        }
+
+        // Logged-out tokens stay cryptographically valid until they expire
+        if (token != null && revocationService.isRevoked(token)) {
+            token = null;
+        }
+
+        // Stateless mode: authorities come from the token itself, no DB round trip
+        UserPrincipal principal = token != null && jwtConfig.isStateless()
+                ? jwtTokenUtil.toPrincipal(token)
+                : null;
+        if (principal != null) {
+            if (principal.isEnabled() && principal.isAccountNonLocked() && principal.isAccountNonExpired()) {
+                authenticate(request, token, principal, principal.getAuthorities());
+                tokenCache.put(jwt, token, principal);
+                renew(response, token, principal);
             }
         }
+        // Otherwise, load the user and authenticate
+        else if (token != null && token.getSubject() != null) {
+            UserDetails userDetails = null;
+            try {
+                userDetails = this.userDetailsService.loadUserByUsername(token.getSubject());
+            } catch (AuthenticationException e) {
+                // Unknown user or a lookup that timed out: continue without authentication,
+                // the entry point answers 401 instead of the error page answering 500
+                logger.warn("Could not load user for JWT token: " + e.getMessage());
+            }
 
-        // If username is extracted and no authentication exists, authenticate
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-
-            // Validate token
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(
-                        userDetails, 
-                        null, 
-                        userDetails.getAuthorities()
-                    );
-                
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            // Validate the already verified claims against the loaded user
+            if (userDetails != null && jwtTokenUtil.validateToken(token, userDetails)) {
+                authenticate(request, token, userDetails, userDetails.getAuthorities());
+                tokenCache.put(jwt, token, userDetails);
+                renew(response, token, userDetails);
             }
         }
 
         filterChain.doFilter(request, response);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Sliding expiry: hand out a replacement for an access token that is about to expire
+     */
+    private void renew(HttpServletResponse response, VerifiedToken token, UserDetails userDetails) {
+        if (!renewalService.isEnabled()) {
+            return;
+        }
+        String renewed = renewalService.renew(token, userDetails);
+        if (renewed != null) {
+            response.setHeader(renewalService.getHeader(), renewed);
+            // browsers only let scripts read non-standard response headers that are exposed
+            response.addHeader("Access-Control-Expose-Headers", renewalService.getHeader());
+        }
+    }
+
+    private void authenticate(HttpServletRequest request,
+                              VerifiedToken token,
+                              UserDetails userDetails,
+                              Collection<? extends GrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authentication = 
+            new UsernamePasswordAuthenticationToken(
+                userDetails, 
+                null, 
+                authorities
+            );
+        
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        request.setAttribute(TOKEN_ATTRIBUTE, token);
+    }
+} 
@@ -1,44 +1,111 @@
 package com.example.security.jwt;
 
 import com.example.security.config.JwtConfig;
+import com.example.security.dto.UserPrincipal;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
  * Enhanced JWT Token Utility Class
  * Handles both access and refresh token generation, validation, and extraction
+ *
+ * The JwtParser is immutable and thread-safe, so it is built once here instead of on every call.
+ * Keys come from the SigningKeyRing: tokens are signed with its active key and carry its id in
+ * the "kid" header, which the parser uses to pick the verification key.
  */
 @Component
 public class JwtTokenUtil {
 
+    private final JwtConfig jwtConfig;
+
+    private final SigningKeyRing keyRing;
+
+    private final JwtParser jwtParser;
+
+    private final HmacJwtVerifier fastVerifier;
+
+    private final HmacJwtIssuer fastIssuer;
+
+    public JwtTokenUtil(JwtConfig jwtConfig) {
+        this(jwtConfig, new SigningKeyRing(jwtConfig));
+    }
+
     @Autowired
-    private JwtConfig jwtConfig;
+    public JwtTokenUtil(JwtConfig jwtConfig, SigningKeyRing keyRing) {
+        this.jwtConfig = jwtConfig;
+        this.keyRing = keyRing;
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyRingResolver(keyRing))
+                .build();
+        this.fastVerifier = jwtConfig.isFastVerify() ? new HmacJwtVerifier(keyRing) : null;
+        this.fastIssuer = jwtConfig.isFastIssue() ? new HmacJwtIssuer(keyRing, jwtConfig.getIssuer()) : null;
+    }
 
     /**
-     * Generate access token for a user
+     * Generate access token for a user who just authenticated
      */
     public String generateAccessToken(UserDetails userDetails) {
+        return generateAccessToken(userDetails, System.currentTimeMillis());
+    }
+
+    /**
+     * Generate access token continuing a session that was authenticated at authTime (epoch ms),
+     * carried in the auth_time claim
+     */
+    public String generateAccessToken(UserDetails userDetails, long authTime) {
+        String tokenId = UUID.randomUUID().toString();
+        List<String> roles = null;
+        int flags = -1;
+        if (jwtConfig.isStateless()) {
+            // Everything the filter needs to rebuild the principal without a DB lookup
+            roles = UserPrincipal.rolesOf(userDetails);
+            flags = UserPrincipal.flagsOf(userDetails);
+        }
+
+        String token = mint(VerifiedToken.ACCESS, userDetails.getUsername(), roles, flags,
+                tokenId, jwtConfig.getAccessTokenExpiration(), authTime);
+        if (token != null) {
+            return token;
+        }
         Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "ACCESS");
-        return createToken(claims, userDetails.getUsername(), jwtConfig.getAccessTokenExpiration());
+        claims.put("type", VerifiedToken.ACCESS);
+        claims.put(VerifiedToken.AUTH_TIME, authTime / 1000);
+        if (roles != null) {
+            claims.put("roles", roles);
+            claims.put("flags", flags);
+        }
+        return createToken(claims, userDetails.getUsername(), jwtConfig.getAccessTokenExpiration(), tokenId);
     }
 
     /**
      * Generate refresh token for a user
      */
     public String generateRefreshToken(UserDetails userDetails) {
+        return generateRefreshToken(userDetails, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Generate refresh token with a given jti, so the caller can record it server-side first
+     */
+    public String generateRefreshToken(UserDetails userDetails, String tokenId) {
+        String token = mint(VerifiedToken.REFRESH, userDetails.getUsername(), null, -1,
+                tokenId, jwtConfig.getRefreshTokenExpiration(), 0L);
+        if (token != null) {
+            return token;
+        }
         Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "REFRESH");
-        return createToken(claims, userDetails.getUsername(), jwtConfig.getRefreshTokenExpiration());
+        claims.put("type", VerifiedToken.REFRESH);
+        return createToken(claims, userDetails.getUsername(), jwtConfig.getRefreshTokenExpiration(), tokenId);
     }
 
     /**
@@ -68,23 +135,89 @@ public class JwtTokenUtil {
         return createToken(claims, username, jwtConfig.getAccessTokenExpiration());
     }
 
+    /**
+     * Mint an access/refresh token with the template issuer
+     *
+     * @return the token, or null if the fast issuer is disabled or the active key is not HS256
+     */
+    private String mint(String type, String subject, List<String> roles, int flags,
+                        String tokenId, long expiration, long authTime) {
+        if (fastIssuer == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        return fastIssuer.issue(type, subject, roles, flags, tokenId, now, now + expiration, authTime);
+    }
+
     /**
      * Create JWT token with claims, subject, and expiration
      */
     private String createToken(Map<String, Object> claims, String subject, long expiration) {
+        return createToken(claims, subject, expiration, UUID.randomUUID().toString());
+    }
+
+    private String createToken(Map<String, Object> claims, String subject, long expiration, String tokenId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + expiration);
+        SigningKey key = keyRing.active();
 
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, key.getKid())
                 .setClaims(claims)
+                .setId(tokenId) // jti, the handle used for revocation and refresh rotation
                 .setSubject(subject)
                 .setIssuer(jwtConfig.getIssuer())
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(key.getSigningKey(), key.getAlgorithm())
                 .compact();
     }
 
+    /**
+     * Verify the signature and expiry of a token exactly once and return its claims.
+     * Callers should hold on to the result instead of calling the extract* methods
+     * repeatedly, each of which pays for a full parse and HMAC.
+     *
+     * @throws JwtException if the token is malformed, tampered with or expired
+     * @throws IllegalArgumentException if the token is null or empty
+     */
+    public VerifiedToken verify(String token) {
+        // our own HS256 tokens take the allocation-light path, everything else goes through jjwt
+        VerifiedToken verified = fastVerifier != null ? fastVerifier.verify(token) : null;
+        if (verified != null) {
+            return verified;
+        }
+        Jws<Claims> jws = jwtParser.parseClaimsJws(token);
+        // tokens without a kid were verified with the key find(null) resolved to
+        String kid = jws.getHeader().getKeyId();
+        if (kid == null) {
+            SigningKey legacy = keyRing.find(null);
+            kid = legacy != null ? legacy.getKid() : null;
+        }
+        return VerifiedToken.from(jws.getBody(), kid);
+    }
+
+    /**
+     * Build the principal of a stateless-mode access token from its claims alone.
+     *
+     * Roles and account flags in the token may be stale by at most the configured
+     * access-token lifetime, so tokens that claim a longer lifetime (e.g. minted before
+     * the expiration was shortened) are refused and the caller falls back to the database.
+     *
+     * @return the principal, or null if the token cannot be trusted without a DB lookup
+     */
+    public UserPrincipal toPrincipal(VerifiedToken token) {
+        if (!token.isAccessToken() || !token.hasAuthorityClaims()) {
+            return null;
+        }
+        // iat/exp have second precision, hence the one second of slack
+        long lifetime = token.getExpiresAt() - token.getIssuedAt();
+        if (lifetime > jwtConfig.getAccessTokenExpiration() + 1000) {
+            return null;
+        }
+        return new UserPrincipal(token.getSubject(), "", token.getRoles(), token.getFlags());
+    }
+
     /**
      * Extract username from JWT token
      */
@@ -113,8 +246,7 @@ public class JwtTokenUtil {
      * Extract token type (ACCESS or REFRESH)
      */
     public String extractTokenType(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("type", String.class);
+        return verify(token).getType();
     }
 
     /**
@@ -128,39 +260,28 @@ public class JwtTokenUtil {
     /**
      * Extract all claims from JWT token
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+    Claims extractAllClaims(String token) {
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     /**
-     * Get the signing key for JWT
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtConfig.getSecret().getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
-
-    /**
-     * Check if token is expired
+     * Validate JWT token for a specific user
      */
-    private Boolean isTokenExpired(String token) {
-
-        // before is a method of Date class that checks if the date is before the given date
-        return extractExpiration(token).before(new Date());
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateToken(verify(token), userDetails);
     }
 
     /**
-     * Validate JWT token for a specific user
+     * Validate already verified claims for a specific user
      */
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
+    public boolean validateToken(VerifiedToken token, UserDetails userDetails) {
         // token is valid if the username is the same as the userDetails.getUsername() 
         // and the token is not expired
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return token.getSubject() != null
+                && token.getSubject().equals(userDetails.getUsername())
+                && !token.isExpired(System.currentTimeMillis());
     }
 
     /**
@@ -168,11 +289,9 @@ public class JwtTokenUtil {
      */
     public Boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token);
-            return !isTokenExpired(token);
+            // the parser rejects expired tokens, so a successful verify is enough
+            verify(token);
+            return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
@@ -183,13 +302,8 @@ public class JwtTokenUtil {
      */
     public Boolean validateRefreshToken(String token) {
         try {
-            if (!validateToken(token)) {
-                return false;
-            }
-            
-            String tokenType = extractTokenType(token);
-            return "REFRESH".equals(tokenType);
-        } catch (Exception e) {
+            return verify(token).isRefreshToken();
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
@@ -198,11 +312,31 @@ public class JwtTokenUtil {
      * Extract role from JWT token
      */
     public String extractRole(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("role", String.class);
+        return verify(token).getRole();
     }
-} 
 
+    /**
+     * Picks the verification key by the token's kid header. The algorithm must be the key's own,
+     * so a token cannot downgrade e.g. to HS256 signed with a published RSA public key.
+     */
+    private static final class KeyRingResolver extends SigningKeyResolverAdapter {
+
+        private final SigningKeyRing keyRing;
+
+        KeyRingResolver(SigningKeyRing keyRing) {
+            this.keyRing = keyRing;
+        }
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            SigningKey key = keyRing.find(header.getKeyId());
+            if (key == null || !key.getAlgorithm().getValue().equals(header.getAlgorithm())) {
+                throw new SignatureException("Unknown signing key: " + header.getKeyId());
+            }
+            return key.getVerificationKey();
+        }
+    }
+} 
 
 /*
  * JWT Token Utility Class - Best Practice Order for Spring Security
@@ -245,4 +379,4 @@ public class JwtTokenUtil {
  * - Easy to understand and maintain
  * - Follows Spring Security best practices
  * - Clear separation of concerns
- */
\ No newline at end of file
+ */
@@ -0,0 +1,122 @@
+package com.example.security.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Signing Key
+ * One immutable entry of the SigningKeyRing: the key id published as the JWS "kid" header,
+ * the algorithm, the key used to sign and the key used to verify (the same secret for HMAC,
+ * the private/public halves for RSA), and until when tokens signed with it are still accepted.
+ */
+public final class SigningKey {
+
+    private final String kid;
+    private final SignatureAlgorithm algorithm;
+    private final Key signingKey;
+    private final Key verificationKey;
+    private final long verifyUntil;
+
+    public SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+        this(kid, algorithm, signingKey, verificationKey, Long.MAX_VALUE);
+    }
+
+    private SigningKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey,
+                       long verifyUntil) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+        this.verifyUntil = verifyUntil;
+    }
+
+    /**
+     * Copy of this key that no longer signs and verifies only until the given time
+     */
+    SigningKey retire(long verifyUntil) {
+        return new SigningKey(kid, algorithm, null, verificationKey, verifyUntil);
+    }
+
+    public String getKid() {
+        return kid;
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Null once the key has been retired
+     */
+    public Key getSigningKey() {
+        return signingKey;
+    }
+
+    public Key getVerificationKey() {
+        return verificationKey;
+    }
+
+    public long getVerifyUntil() {
+        return verifyUntil;
+    }
+
+    public boolean isHmac() {
+        return algorithm.isHmac();
+    }
+
+    /**
+     * Only asymmetric keys may be published; HMAC secrets never leave this service
+     */
+    public boolean isPublishable() {
+        return verificationKey instanceof RSAPublicKey;
+    }
+
+    /**
+     * JWK (RFC 7517) of the public key, without surrounding whitespace
+     */
+    String toJwk() {
+        RSAPublicKey publicKey = (RSAPublicKey) verificationKey;
+        return "{\"kty\":\"RSA\",\"use\":\"sig\",\"alg\":\"" + algorithm.getValue() + "\"" +
+                ",\"kid\":\"" + kid + "\"" +
+                ",\"n\":\"" + base64Url(publicKey.getModulus()) + "\"" +
+                ",\"e\":\"" + base64Url(publicKey.getPublicExponent()) + "\"}";
+    }
+
+    /**
+     * Stable key id derived from key material: base64url of the first 12 bytes of its SHA-256
+     */
+    static String kidOf(byte[] material) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 12));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String kidOf(String secret) {
+        return kidOf(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // JWK integers are unsigned big-endian, drop the sign byte BigInteger may add
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Override
+    public String toString() {
+        return "SigningKey{kid='" + kid + "', algorithm=" + algorithm + ", verifyUntil=" + verifyUntil + '}';
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.RSAPrivateKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Signing Key Ring
+ *
+ * The keys tokens are signed and verified with. Exactly one key is active and signs new
+ * tokens (its id goes into the "kid" header); keys that were rotated out stay accepted for
+ * verification until jwt.signing.verification-overlap has passed, so outstanding tokens
+ * survive a rotation instead of forcing everyone to log in again.
+ *
+ * Modes (jwt.signing.algorithm):
+ * - HS256: the shared jwt.secret, as before. Other services need the secret to verify.
+ *   With jwt.secret-file the secret is read from that file instead and reloaded at runtime
+ *   whenever the file changes (polled every jwt.signing.reload-interval) or on POST /admin/keys/reload,
+ *   so the secret can be replaced without a restart and without invalidating outstanding tokens.
+ * - RS256: the RSA key pair in jwt.signing.key-store (entry jwt.signing.key-alias), so every node
+ *   and every restart signs with the same key. The key store is polled like the secret file and
+ *   reloaded on POST /admin/keys/reload: rotating means replacing the file or pointing key-alias at
+ *   a new entry, the previous key keeps verifying for the overlap. Without a key store a key pair
+ *   is generated in memory and rotated every jwt.signing.rotation-interval - good for a single
+ *   node in development only, since tokens do not survive a restart or verify on other nodes.
+ *   Public keys are published at /.well-known/jwks.json so resource servers verify locally.
+ *
+ * The state is an immutable Snapshot swapped atomically: readers on the verification path
+ * do one volatile read and a scan of a tiny array, no locks and no allocation.
+ */
+@Component
+public class SigningKeyRing {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyRing.class);
+
+    private final JwtConfig jwtConfig;
+    private volatile Snapshot snapshot;
+    private volatile long secretFileModified;
+    private volatile long keyStoreModified;
+
+    public SigningKeyRing(JwtConfig jwtConfig) {
+        this.jwtConfig = jwtConfig;
+        this.snapshot = new Snapshot(newKey(), new SigningKey[0]);
+        if (!snapshot.active.isHmac() && jwtConfig.getSigning().getKeyStore() == null) {
+            log.warn("No jwt.signing.key-store configured: signing with a generated {} key pair that is "
+                    + "not shared with other nodes and is lost on restart", snapshot.active.getAlgorithm().getValue());
+        }
+    }
+
+    /**
+     * The key new tokens are signed with
+     */
+    public SigningKey active() {
+        return snapshot.active;
+    }
+
+    /**
+     * Key for verifying a token with the given kid header
+     *
+     * @param kid the kid header, or null for tokens minted before kid headers were emitted
+     * @return the key, or null if it is unknown or its verification window has closed
+     */
+    public SigningKey find(String kid) {
+        Snapshot current = snapshot;
+        if (kid == null) {
+            // legacy tokens were always HS256 with the configured secret
+            return current.active.isHmac() ? current.active : null;
+        }
+        if (kid.equals(current.active.getKid())) {
+            return current.active;
+        }
+        long now = System.currentTimeMillis();
+        for (SigningKey key : current.retired) {
+            if (kid.equals(key.getKid()) && now < key.getVerifyUntil()) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Public keys as a JWK Set document (RFC 7517), precomputed per rotation. Shared, do not modify.
+     */
+    public byte[] jwks() {
+        return snapshot.jwks;
+    }
+
+    /**
+     * Make a new key active; the previous one keeps verifying for the overlap window
+     */
+    public synchronized void rotate() {
+        install(newKey());
+    }
+
+    /**
+     * Re-read the signing material: picks up a changed secret (HS256) or key store entry (RS256),
+     * or rotates a generated key pair. Material that did not change leaves the ring as it is.
+     *
+     * @return the id of the active key afterwards
+     */
+    public synchronized String reload() {
+        install(newKey());
+        return snapshot.active.getKid();
+    }
+
+    /**
+     * Poll jwt.secret-file (HS256) or jwt.signing.key-store (RS256) and reload when it was modified.
+     * A file that cannot be read or holds unusable key material is logged and ignored, the current
+     * key stays active.
+     */
+    @Scheduled(initialDelayString = "${jwt.signing.reload-interval:PT30S}",
+               fixedDelayString = "${jwt.signing.reload-interval:PT30S}")
+    public void checkSecretFile() {
+        boolean hmac = snapshot.active.isHmac();
+        String file = hmac ? jwtConfig.getSecretFile() : jwtConfig.getSigning().getKeyStore();
+        if (file == null) {
+            return;
+        }
+        try {
+            long modified = Files.getLastModifiedTime(Path.of(file)).toMillis();
+            if (modified != (hmac ? secretFileModified : keyStoreModified)) {
+                String kid = reload();
+                log.info("Signing key reloaded from {}, active key {}", file, kid);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not reload signing key from {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Scheduled rotation; only generated RSA keys are rotated automatically, HMAC secrets and
+     * key store entries come from config
+     */
+    @Scheduled(initialDelayString = "${jwt.signing.rotation-interval:P1D}",
+               fixedDelayString = "${jwt.signing.rotation-interval:P1D}")
+    public void scheduledRotation() {
+        if (!snapshot.active.isHmac() && jwtConfig.getSigning().getKeyStore() == null) {
+            rotate();
+        }
+    }
+
+    synchronized void install(SigningKey next) {
+        Snapshot current = snapshot;
+        if (next.getKid().equals(current.active.getKid())) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<SigningKey> retired = new ArrayList<>();
+        retired.add(current.active.retire(now + verificationOverlapMillis()));
+        for (SigningKey key : current.retired) {
+            if (now < key.getVerifyUntil() && !key.getKid().equals(next.getKid())) {
+                retired.add(key);
+            }
+        }
+        snapshot = new Snapshot(next, retired.toArray(new SigningKey[0]));
+    }
+
+    private long verificationOverlapMillis() {
+        if (jwtConfig.getSigning().getVerificationOverlap() != null) {
+            return jwtConfig.getSigning().getVerificationOverlap().toMillis();
+        }
+        // by default every token signed with the old key can live out its lifetime
+        return Math.max(jwtConfig.getAccessTokenExpiration(), jwtConfig.getRefreshTokenExpiration());
+    }
+
+    private SigningKey newKey() {
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(jwtConfig.getSigning().getAlgorithm());
+        if (algorithm.isHmac()) {
+            String secret = currentSecret();
+            SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+            return new SigningKey(SigningKey.kidOf(secret), algorithm, key, key);
+        }
+        if (algorithm.isRsa()) {
+            return jwtConfig.getSigning().getKeyStore() != null ? loadKeyPair(algorithm) : generateKeyPair(algorithm);
+        }
+        throw new IllegalArgumentException("Unsupported jwt.signing.algorithm: " + algorithm.getValue());
+    }
+
+    private SigningKey generateKeyPair(SignatureAlgorithm algorithm) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(jwtConfig.getSigning().getKeySize());
+            KeyPair pair = generator.generateKeyPair();
+            return new SigningKey(SigningKey.kidOf(pair.getPublic().getEncoded()), algorithm,
+                    pair.getPrivate(), pair.getPublic());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("RSA not available", e);
+        }
+    }
+
+    /**
+     * The RSA key pair of the configured key store entry; the kid is derived from the public key,
+     * so all nodes loading the same entry agree on it
+     */
+    private SigningKey loadKeyPair(SignatureAlgorithm algorithm) {
+        JwtConfig.Signing signing = jwtConfig.getSigning();
+        Path file = Path.of(signing.getKeyStore());
+        try {
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            char[] storePassword = toChars(signing.getKeyStorePassword());
+            KeyStore keyStore = KeyStore.getInstance(signing.getKeyStoreType());
+            try (InputStream in = Files.newInputStream(file)) {
+                keyStore.load(in, storePassword);
+            }
+            String alias = signing.getKeyAlias() != null ? signing.getKeyAlias() : onlyKeyAlias(keyStore);
+            char[] keyPassword = signing.getKeyPassword() != null ? toChars(signing.getKeyPassword()) : storePassword;
+            Key key = keyStore.getKey(alias, keyPassword);
+            Certificate certificate = keyStore.getCertificate(alias);
+            if (!(key instanceof RSAPrivateKey) || certificate == null) {
+                throw new IllegalStateException("No RSA private key entry '" + alias + "' in jwt.signing.key-store " + file);
+            }
+            PublicKey publicKey = certificate.getPublicKey();
+            keyStoreModified = modified;
+            return new SigningKey(SigningKey.kidOf(publicKey.getEncoded()), algorithm, (PrivateKey) key, publicKey);
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot load jwt.signing.key-store " + file, e);
+        }
+    }
+
+    private static String onlyKeyAlias(KeyStore keyStore) throws GeneralSecurityException {
+        String found = null;
+        for (String alias : Collections.list(keyStore.aliases())) {
+            if (keyStore.isKeyEntry(alias)) {
+                if (found != null) {
+                    throw new IllegalStateException("jwt.signing.key-store holds several keys, set jwt.signing.key-alias");
+                }
+                found = alias;
+            }
+        }
+        if (found == null) {
+            throw new IllegalStateException("jwt.signing.key-store holds no private key");
+        }
+        return found;
+    }
+
+    private static char[] toChars(String password) {
+        return password != null ? password.toCharArray() : null;
+    }
+
+    private String currentSecret() {
+        if (jwtConfig.getSecretFile() == null) {
+            return jwtConfig.getSecret();
+        }
+        try {
+            Path file = Path.of(jwtConfig.getSecretFile());
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            String secret = Files.readString(file, StandardCharsets.UTF_8).trim();
+            secretFileModified = modified;
+            return secret;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read jwt.secret-file " + jwtConfig.getSecretFile(), e);
+        }
+    }
+
+    /**
+     * Immutable state of the ring
+     */
+    private static final class Snapshot {
+
+        private final SigningKey active;
+        private final SigningKey[] retired;
+        private final byte[] jwks;
+
+        Snapshot(SigningKey active, SigningKey[] retired) {
+            this.active = active;
+            this.retired = retired;
+            StringBuilder json = new StringBuilder("{\"keys\":[");
+            String separator = "";
+            if (active.isPublishable()) {
+                json.append(active.toJwk());
+                separator = ",";
+            }
+            for (SigningKey key : retired) {
+                if (key.isPublishable()) {
+                    json.append(separator).append(key.toJwk());
+                    separator = ",";
+                }
+            }
+            this.jwks = json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verified Token Cache
+ * Remembers the principal and authorities of tokens that already passed verification,
+ * so repeat requests with the same token skip decoding, parsing and the HMAC check.
+ *
+ * Entries are keyed by a SHA-256 digest of the raw token (the token itself is never kept),
+ * bounded by jwt.cache.max-size and expire exactly when the token does. A hit is only served
+ * while the SigningKeyRing still accepts the key that verified the token, so a key that was
+ * rotated out or reloaded away stops authenticating its cached tokens at the same moment
+ * it stops verifying new ones.
+ * Disabled unless jwt.cache.enabled=true. Hit/miss metrics are tagged cache=jwt.verifiedTokens.
+ */
+@Component
+public class TokenAuthenticationCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Cache<ByteBuffer, Entry> cache;
+    private final SigningKeyRing keyRing;
+
+    public TokenAuthenticationCache(JwtConfig jwtConfig, SigningKeyRing keyRing, MeterRegistry meterRegistry) {
+        this.keyRing = keyRing;
+        JwtConfig.Cache settings = jwtConfig.getCache();
+        this.cache = settings.isEnabled()
+                ? Caffeine.newBuilder()
+                    .maximumSize(settings.getMaxSize())
+                    .expireAfter(new UntilTokenExpiry())
+                    .recordStats()
+                    .build()
+                : null;
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verifiedTokens");
+        }
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Look up a previously verified token
+     *
+     * @return the cached entry, or null on a miss or when the cache is disabled
+     */
+    public Entry get(String token) {
+        if (cache == null) {
+            return null;
+        }
+        ByteBuffer key = digest(token);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        // Caffeine expires lazily, so guard against handing out an entry in its last tick
+        if (entry.getToken().isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        if (keyRing.find(entry.getToken().getKid()) == null) {
+            cache.invalidate(key); // its signing key is no longer trusted
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Remember a verified token together with the principal it resolved to
+     */
+    public void put(String token, VerifiedToken verified, UserDetails principal) {
+        if (cache == null) {
+            return;
+        }
+        cache.put(digest(token), new Entry(verified, principal));
+    }
+
+    /**
+     * Drop a single token, e.g. on logout
+     */
+    public void invalidate(String token) {
+        if (cache != null && token != null) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    /**
+     * Drop every cached token of a user, e.g. after a role change or deletion
+     */
+    public void invalidateUser(String username) {
+        if (cache != null && username != null) {
+            cache.asMap().values().removeIf(entry -> username.equals(entry.getToken().getSubject()));
+        }
+    }
+
+    public void invalidateAll() {
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    public long getHitCount() {
+        return stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return stats().missCount();
+    }
+
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        return ByteBuffer.wrap(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * A verified token and the principal/authorities it authenticates
+     */
+    public static final class Entry {
+
+        private final VerifiedToken token;
+        private final UserDetails principal;
+        private final Collection<? extends GrantedAuthority> authorities;
+
+        Entry(VerifiedToken token, UserDetails principal) {
+            this.token = token;
+            this.principal = principal;
+            this.authorities = principal.getAuthorities();
+        }
+
+        public VerifiedToken getToken() {
+            return token;
+        }
+
+        public UserDetails getPrincipal() {
+            return principal;
+        }
+
+        public Collection<? extends GrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+    }
+
+    /**
+     * Expire each entry at its token's exp claim
+     */
+    private static final class UntilTokenExpiry implements Expiry<ByteBuffer, Entry> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Entry value, long currentTime) {
+            long remainingMillis = value.getToken().getExpiresAt() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sliding Token Renewal
+ *
+ * Re-issues access tokens that are about to expire while they are still being used, so active
+ * clients never have to call /api/auth/refresh. JwtAuthenticationFilter hands every
+ * authenticated access token to renew(); within jwt.renewal.window of its expiry a fresh access
+ * token is minted for the already resolved principal and returned in the jwt.renewal.header
+ * response header.
+ *
+ * Renewal happens at most once per token id: the minted token is remembered per jti until the
+ * old token has expired, and concurrent requests carrying the same token wait for and share the
+ * single mint (Caffeine computes each key atomically). Disabled unless jwt.renewal.enabled=true.
+ *
+ * Renewal never outlives the login: replacements keep the auth_time of the token they replace,
+ * and none is minted that would expire later than auth_time + jwt.renewal.max-session-age, so the
+ * client has to refresh or log in again. In stateless mode the principal of a request is built
+ * from the token's own, possibly stale claims, so the user is reloaded before a replacement is
+ * minted and disabled or locked accounts get none.
+ *
+ * Metrics: jwt.renewal.issued, jwt.renewal.reused, jwt.renewal.refused{reason=session_age|account}
+ */
+@Component
+public class TokenRenewalService {
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final JwtConfig jwtConfig;
+    private final UserDetailsService userDetailsService;
+    private final long windowMillis;
+    private final long maxSessionAgeMillis;
+    private final String header;
+    private final Cache<String, String> renewed;
+    private final Counter issued;
+    private final Counter reused;
+    private final Counter refusedSessionAge;
+    private final Counter refusedAccount;
+
+    public TokenRenewalService(JwtTokenUtil jwtTokenUtil, JwtConfig jwtConfig,
+                               UserDetailsService userDetailsService, MeterRegistry meterRegistry) {
+        JwtConfig.Renewal settings = jwtConfig.getRenewal();
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtConfig = jwtConfig;
+        this.userDetailsService = userDetailsService;
+        this.windowMillis = settings.getWindow().toMillis();
+        this.maxSessionAgeMillis = settings.getMaxSessionAge().toMillis();
+        this.header = settings.getHeader();
+        // an entry is only needed until the token it replaces expires, i.e. at most one window
+        this.renewed = settings.isEnabled() && windowMillis > 0
+                ? Caffeine.newBuilder()
+                    .maximumSize(settings.getMaxSize())
+                    .expireAfterWrite(settings.getWindow())
+                    .build()
+                : null;
+        this.issued = meterRegistry.counter("jwt.renewal.issued");
+        this.reused = meterRegistry.counter("jwt.renewal.reused");
+        this.refusedSessionAge = meterRegistry.counter("jwt.renewal.refused", "reason", "session_age");
+        this.refusedAccount = meterRegistry.counter("jwt.renewal.refused", "reason", "account");
+    }
+
+    public boolean isEnabled() {
+        return renewed != null;
+    }
+
+    /**
+     * Response header carrying the renewed token
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * Renew an authenticated access token if it is close to expiry
+     *
+     * @param token the verified, non-revoked token of the current request
+     * @param principal the principal the token was authenticated as
+     * @return the replacement access token, or null if the token does not need renewing yet or
+     *         may not be renewed any more
+     */
+    public String renew(VerifiedToken token, UserDetails principal) {
+        if (renewed == null || !token.isAccessToken() || token.getId() == null) {
+            return null;
+        }
+        long remaining = token.getExpiresAt() - System.currentTimeMillis();
+        if (remaining <= 0 || remaining > windowMillis) {
+            return null;
+        }
+
+        boolean[] minted = new boolean[1];
+        String replacement = renewed.get(token.getId(), jti -> {
+            minted[0] = true;
+            return replace(token, principal);
+        });
+        if (replacement != null) {
+            (minted[0] ? issued : reused).increment();
+        }
+        return replacement;
+    }
+
+    /**
+     * Mint a replacement for an authenticated access token on request, whatever its expiry,
+     * under the same session-age and account rules as renew()
+     *
+     * @return the replacement access token, or null if the session may not be extended
+     */
+    public String reissue(VerifiedToken token, UserDetails principal) {
+        if (!token.isAccessToken()) {
+            return null;
+        }
+        String replacement = replace(token, principal);
+        if (replacement != null) {
+            issued.increment();
+        }
+        return replacement;
+    }
+
+    private String replace(VerifiedToken token, UserDetails principal) {
+        // tokens without auth_time predate the session cap and cannot be bounded by it
+        long sessionEnd = token.getAuthTime() + maxSessionAgeMillis;
+        if (token.getAuthTime() <= 0
+                || System.currentTimeMillis() + jwtConfig.getAccessTokenExpiration() > sessionEnd) {
+            refusedSessionAge.increment();
+            return null;
+        }
+        UserDetails current = jwtConfig.isStateless() ? reload(token.getSubject()) : principal;
+        if (current == null) {
+            refusedAccount.increment();
+            return null;
+        }
+        return jwtTokenUtil.generateAccessToken(current, token.getAuthTime());
+    }
+
+    /**
+     * Current state of the user behind a stateless token, or null if it may not be renewed
+     */
+    private UserDetails reload(String username) {
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(username);
+        } catch (AuthenticationException e) {
+            // unknown user, or a coalesced load that timed out: no renewal this time
+            return null;
+        }
+        return user.isEnabled() && user.isAccountNonLocked() && user.isAccountNonExpired() ? user : null;
+    }
+}
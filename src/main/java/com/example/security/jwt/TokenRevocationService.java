@@ -0,0 +1,100 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token Revocation Service
+ *
+ * Denylist of token ids (jti) that were logged out before they expired.
+ *
+ * The authoritative store is an in-memory map of jti -> token expiry. Every authenticated
+ * request asks isRevoked(), so a Bloom filter sits in front of it: almost all tokens are not
+ * revoked and are answered by a few bit probes, only a filter hit (a revoked token or a rare
+ * false positive) touches the map. Entries are dropped once their token has expired anyway,
+ * and the filter is rebuilt from the surviving entries, so both stay proportional to the
+ * number of live revoked tokens rather than everything ever revoked.
+ *
+ * Metrics: jwt.revocation.entries (gauge), jwt.revocation.lookups{result=filtered|revoked|false_positive}.
+ */
+@Component
+public class TokenRevocationService {
+
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final JwtConfig.Revocation settings;
+    private volatile BloomFilter filter;
+
+    private final Counter filteredLookups;
+    private final Counter revokedLookups;
+    private final Counter falsePositives;
+
+    public TokenRevocationService(JwtConfig jwtConfig, MeterRegistry meterRegistry) {
+        this.settings = jwtConfig.getRevocation();
+        this.filter = newFilter(0);
+
+        this.filteredLookups = meterRegistry.counter("jwt.revocation.lookups", "result", "filtered");
+        this.revokedLookups = meterRegistry.counter("jwt.revocation.lookups", "result", "revoked");
+        this.falsePositives = meterRegistry.counter("jwt.revocation.lookups", "result", "false_positive");
+        Gauge.builder("jwt.revocation.entries", revoked, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoke a token until it expires. Tokens without a jti cannot be revoked individually.
+     */
+    public void revoke(VerifiedToken token) {
+        if (token.getId() == null || token.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+        // map first: a concurrent reader that sees the filter bit must also find the entry
+        revoked.put(token.getId(), token.getExpiresAt());
+        filter.put(token.getId());
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        String id = token.getId();
+        if (id == null || !filter.mightContain(id)) {
+            filteredLookups.increment();
+            return false;
+        }
+        Long expiresAt = revoked.get(id);
+        if (expiresAt == null) {
+            falsePositives.increment();
+            return false;
+        }
+        revokedLookups.increment();
+        return true;
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Drop entries whose tokens have expired and rebuild the filter for the remaining ones
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1M}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+
+        BloomFilter rebuilt = newFilter(revoked.size());
+        revoked.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        // ids revoked while we were copying may have gone into the old filter only
+        revoked.keySet().forEach(rebuilt::put);
+    }
+
+    private BloomFilter newFilter(int liveEntries) {
+        // leave headroom so the false positive rate holds until the next purge
+        long expected = Math.max(settings.getExpectedEntries(), 2L * liveEntries);
+        return new BloomFilter(expected, settings.getFalsePositiveRate());
+    }
+}
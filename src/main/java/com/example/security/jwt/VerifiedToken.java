@@ -0,0 +1,189 @@
+package com.example.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Verified Token
+ * Immutable view of the claims of a token whose signature and expiry have already been checked.
+ * Obtained once per request from JwtTokenUtil.verify() and reused instead of re-parsing the token.
+ */
+public final class VerifiedToken {
+
+    public static final String ACCESS = "ACCESS";
+    public static final String REFRESH = "REFRESH";
+    public static final String AUTH_TIME = "auth_time";
+
+    private final String id;
+    private final String subject;
+    private final String type;
+    private final String role;
+    private final List<String> roles;
+    private final int flags;
+    private final long issuedAt;
+    private final long expiresAt;
+    private final String kid;
+    private final long authTime;
+
+    public VerifiedToken(String subject, String type, String role, long expiresAt) {
+        this(null, subject, type, role, null, -1, 0L, expiresAt);
+    }
+
+    /**
+     * @param id jti claim, or null if the token carries none
+     * @param roles role names embedded in the token, or null if it carries none
+     * @param flags packed account flags (see UserPrincipal), or -1 if the token carries none
+     */
+    public VerifiedToken(String id, String subject, String type, String role, List<String> roles,
+                         int flags, long issuedAt, long expiresAt) {
+        this(id, subject, type, role, roles, flags, issuedAt, expiresAt, null);
+    }
+
+    /**
+     * @param kid id of the key the signature was verified with, or null if unknown
+     */
+    public VerifiedToken(String id, String subject, String type, String role, List<String> roles,
+                         int flags, long issuedAt, long expiresAt, String kid) {
+        this(id, subject, type, role, roles, flags, issuedAt, expiresAt, kid, 0L);
+    }
+
+    /**
+     * @param authTime epoch milliseconds of the login the token descends from, or 0 if it carries none
+     */
+    public VerifiedToken(String id, String subject, String type, String role, List<String> roles,
+                         int flags, long issuedAt, long expiresAt, String kid, long authTime) {
+        this.id = id;
+        this.subject = subject;
+        this.type = type;
+        this.role = role;
+        this.roles = roles != null ? Collections.unmodifiableList(roles) : null;
+        this.flags = flags;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+        this.kid = kid;
+        this.authTime = authTime;
+    }
+
+    /**
+     * Copy the claims we care about out of a parsed jjwt body
+     */
+    @SuppressWarnings("unchecked")
+    static VerifiedToken from(Claims claims, String kid) {
+        Date issuedAt = claims.getIssuedAt();
+        Date expiration = claims.getExpiration();
+        Integer flags = claims.get("flags", Integer.class);
+        Number authTime = claims.get(AUTH_TIME, Number.class);
+        return new VerifiedToken(
+            claims.getId(),
+            claims.getSubject(),
+            claims.get("type", String.class),
+            claims.get("role", String.class),
+            claims.get("roles", List.class),
+            flags != null ? flags : -1,
+            issuedAt != null ? issuedAt.getTime() : 0L,
+            expiration != null ? expiration.getTime() : Long.MAX_VALUE,
+            kid,
+            authTime != null ? authTime.longValue() * 1000 : 0L
+        );
+    }
+
+    /**
+     * Unique token id (jti), or null for tokens issued before ids were emitted
+     */
+    public String getId() {
+        return id;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Role names embedded by stateless-mode access tokens, or null
+     */
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Packed account flags embedded by stateless-mode access tokens, or -1
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * True if the token carries enough claims to build the principal without a DB lookup
+     */
+    public boolean hasAuthorityClaims() {
+        return roles != null && flags >= 0;
+    }
+
+    /**
+     * Issue time as epoch milliseconds (0 if absent)
+     */
+    public long getIssuedAt() {
+        return issuedAt;
+    }
+
+    /**
+     * Expiry as epoch milliseconds
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Id of the signing key that verified the token, or null if unknown
+     */
+    public String getKid() {
+        return kid;
+    }
+
+    /**
+     * Time of the login this access token descends from, as epoch milliseconds (0 if absent).
+     * Renewed tokens keep it, so it bounds how long a session can be kept alive.
+     */
+    public long getAuthTime() {
+        return authTime;
+    }
+
+    public Date getExpiration() {
+        return new Date(expiresAt);
+    }
+
+    public boolean isAccessToken() {
+        return ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH.equals(type);
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt <= nowMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "VerifiedToken{" +
+                "id='" + id + '\'' +
+                ", subject='" + subject + '\'' +
+                ", type='" + type + '\'' +
+                ", role='" + role + '\'' +
+                ", roles=" + roles +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
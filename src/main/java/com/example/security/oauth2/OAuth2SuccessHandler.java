@@ -1,13 +1,16 @@
 package com.example.security.oauth2;
 
 import com.example.security.dto.TokenResponse;
+import com.example.security.dto.UserPrincipal;
 import com.example.security.entity.User;
-import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.refresh.RefreshTokenService;
 import com.example.security.repository.UserRepository;
 import com.example.security.service.CustomUserDetailsService;
+import com.example.security.service.UserDetailsCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
@@ -33,7 +36,7 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
     private UserRepository userRepository;
 
     @Autowired
-    private JwtTokenUtil jwtTokenUtil;
+    private RefreshTokenService refreshTokenService;
 
     @Autowired
     private CustomUserDetailsService userDetailsService;
@@ -41,6 +44,9 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, 
                                       HttpServletResponse response, 
@@ -63,8 +69,14 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
             User user = findOrCreateOAuth2User(provider, oauth2Id, email, name, pictureUrl);
 
             // Generate JWT tokens
-            UserDetails userDetails = userDetailsService.loadUserByUsername(user.getUsername());
-            Map<String, String> tokens = jwtTokenUtil.generateTokenPair(userDetails);
+            UserDetails userDetails;
+            try {
+                userDetails = userDetailsService.loadUserByUsername(user.getUsername());
+            } catch (AuthenticationException e) {
+                // the user lookup timed out: the entity in hand was just read or saved, use it as is
+                userDetails = UserPrincipal.from(user);
+            }
+            Map<String, String> tokens = refreshTokenService.generateTokenPair(userDetails);
 
             // Create response
             TokenResponse tokenResponse = new TokenResponse(
@@ -109,11 +121,15 @@ public class OAuth2SuccessHandler extends SimpleUrlAuthenticationSuccessHandler
             user.setOauth2Id(oauth2Id);
             user.setName(name);
             user.setPictureUrl(pictureUrl);
-            return userRepository.save(user);
+            User linked = userRepository.save(user);
+            userDetailsCache.evict(linked);
+            return linked;
         }
 
         // Create new OAuth2 user
         User newUser = new User(email, provider, oauth2Id, name, pictureUrl);
-        return userRepository.save(newUser);
+        User created = userRepository.save(newUser);
+        userDetailsCache.evict(created);
+        return created;
     }
 } 
\ No newline at end of file
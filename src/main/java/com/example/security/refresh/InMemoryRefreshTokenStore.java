@@ -0,0 +1,88 @@
+package com.example.security.refresh;
+
+import com.example.security.entity.RefreshToken;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-Memory Refresh Token Store
+ *
+ * Records by jti plus a family index, so rotation and family revocation never scan.
+ * Stored records are never mutated; status changes replace them atomically via compute.
+ * Single node only and lost on restart (every session then has to log in again).
+ */
+@Component
+@ConditionalOnProperty(prefix = "refresh-token", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRefreshTokenStore implements RefreshTokenStore {
+
+    private final Map<String, RefreshToken> tokens = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<String>> families = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(RefreshToken token) {
+        tokens.put(token.getTokenId(), copy(token, token.getStatus()));
+        families.computeIfAbsent(token.getFamilyId(), id -> ConcurrentHashMap.newKeySet())
+                .add(token.getTokenId());
+    }
+
+    @Override
+    public RefreshToken find(String tokenId) {
+        return tokens.get(tokenId);
+    }
+
+    @Override
+    public boolean consume(String tokenId) {
+        boolean[] consumed = new boolean[1];
+        tokens.computeIfPresent(tokenId, (id, token) -> {
+            if (!token.isActive()) {
+                return token;
+            }
+            consumed[0] = true;
+            return copy(token, RefreshToken.Status.CONSUMED);
+        });
+        return consumed[0];
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        Set<String> members = families.get(familyId);
+        if (members != null) {
+            members.forEach(this::revoke);
+        }
+    }
+
+    @Override
+    public void revokeUser(String username) {
+        // rare (account deletion/lock), a scan is fine here
+        tokens.values().stream()
+                .filter(token -> username.equals(token.getUsername()))
+                .forEach(token -> revoke(token.getTokenId()));
+    }
+
+    @Override
+    public int purgeExpired(long now) {
+        int before = tokens.size();
+        tokens.values().removeIf(token -> token.getExpiresAt() <= now);
+        families.values().removeIf(members -> {
+            members.removeIf(id -> !tokens.containsKey(id));
+            return members.isEmpty();
+        });
+        return before - tokens.size();
+    }
+
+    private void revoke(String tokenId) {
+        tokens.computeIfPresent(tokenId, (id, token) -> copy(token, RefreshToken.Status.REVOKED));
+    }
+
+    private static RefreshToken copy(RefreshToken token, RefreshToken.Status status) {
+        RefreshToken copy = new RefreshToken(token.getTokenId(), token.getFamilyId(),
+                token.getUsername(), token.getExpiresAt());
+        copy.setStatus(status);
+        return copy;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.security.refresh;
+
+import com.example.security.entity.RefreshToken;
+import com.example.security.repository.RefreshTokenRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA Refresh Token Store
+ * Keeps rotation records in the application datasource (refresh_tokens table), shared by
+ * every node and surviving restarts. Status changes are single conditional UPDATE statements.
+ */
+@Component
+@ConditionalOnProperty(prefix = "refresh-token", name = "store", havingValue = "jpa")
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository repository;
+
+    public JpaRefreshTokenStore(RefreshTokenRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public void save(RefreshToken token) {
+        repository.save(token);
+    }
+
+    @Override
+    public RefreshToken find(String tokenId) {
+        return repository.findById(tokenId).orElse(null);
+    }
+
+    @Override
+    public boolean consume(String tokenId) {
+        return repository.consume(tokenId, RefreshToken.Status.ACTIVE, RefreshToken.Status.CONSUMED) == 1;
+    }
+
+    @Override
+    public void revokeFamily(String familyId) {
+        repository.revokeFamily(familyId, RefreshToken.Status.REVOKED);
+    }
+
+    @Override
+    public void revokeUser(String username) {
+        repository.revokeUser(username, RefreshToken.Status.REVOKED);
+    }
+
+    @Override
+    public int purgeExpired(long now) {
+        return repository.deleteExpired(now);
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.security.refresh;
+
+import com.example.security.config.RefreshTokenConfig;
+import com.example.security.entity.RefreshToken;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-Mapped File Refresh Token Store
+ *
+ * Single-node store that survives restarts without a database. Every change is appended to a
+ * memory-mapped log file (refresh-token.file); the current records live in in-memory maps,
+ * indexed by token id, family and user, so lookups and revocations never touch the file.
+ * On startup the log is replayed to rebuild the maps.
+ *
+ * Log entry: [int length][int crc32][payload], payload is either
+ *   SAVE   (type, tokenId, familyId, username, expiresAt, status) or
+ *   STATUS (type, tokenId, status).
+ * A torn entry at the tail (crash mid-write) fails its checksum and is discarded on replay.
+ *
+ * Compaction rewrites the log with only the unexpired records into a side file that atomically
+ * replaces the old one. It runs after purgeExpired() when records expired or the log has
+ * doubled since the last compaction, and whenever the mapping is full; if the live records
+ * alone still do not fit, the mapping is doubled.
+ * Writes are serialized on the store; reads are lock-free.
+ *
+ * Writes land in the page cache, so they survive a crash of the JVM but not of the machine
+ * unless the OS flushed them; the log is forced to disk on compaction and shutdown.
+ */
+@Component
+@ConditionalOnProperty(prefix = "refresh-token", name = "store", havingValue = "file")
+public class MappedFileRefreshTokenStore implements RefreshTokenStore {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedFileRefreshTokenStore.class);
+
+    private static final byte SAVE = 1;
+    private static final byte STATUS = 2;
+    private static final int ENTRY_HEADER = 8;
+
+    private static final RefreshToken.Status[] STATUSES = RefreshToken.Status.values();
+
+    private final Path path;
+    private final long initialSize;
+
+    private final Map<String, RefreshToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> families = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> users = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int compactedSize;
+
+    public MappedFileRefreshTokenStore(RefreshTokenConfig config) throws IOException {
+        this.path = Path.of(config.getFile()).toAbsolutePath();
+        this.initialSize = Math.max(4096, config.getFileSize().toBytes());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        synchronized (this) {
+            long size = Files.exists(path) ? Math.max(Files.size(path), initialSize) : initialSize;
+            map(size);
+            int replayed = replay();
+            purge(System.currentTimeMillis());
+            compact();
+            log.info("Loaded {} refresh tokens from {} ({} log entries)", tokens.size(), path, replayed);
+        }
+    }
+
+    @Override
+    public synchronized void save(RefreshToken token) {
+        RefreshToken copy = copy(token, token.getStatus());
+        append(encode(copy));
+        index(copy);
+    }
+
+    @Override
+    public RefreshToken find(String tokenId) {
+        return tokens.get(tokenId);
+    }
+
+    @Override
+    public synchronized boolean consume(String tokenId) {
+        RefreshToken token = tokens.get(tokenId);
+        if (token == null || !token.isActive()) {
+            return false;
+        }
+        setStatus(token, RefreshToken.Status.CONSUMED);
+        return true;
+    }
+
+    @Override
+    public synchronized void revokeFamily(String familyId) {
+        revokeAll(families.get(familyId));
+    }
+
+    @Override
+    public synchronized void revokeUser(String username) {
+        revokeAll(users.get(username));
+    }
+
+    @Override
+    public synchronized int purgeExpired(long now) {
+        int removed = purge(now);
+        if (removed > 0 || buffer.position() >= 2L * compactedSize) {
+            compact();
+        }
+        return removed;
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Current size of the log in bytes
+     */
+    synchronized int logSize() {
+        return buffer.position();
+    }
+
+    private void revokeAll(Set<String> tokenIds) {
+        if (tokenIds == null) {
+            return;
+        }
+        for (String tokenId : tokenIds) {
+            RefreshToken token = tokens.get(tokenId);
+            if (token != null && token.getStatus() != RefreshToken.Status.REVOKED) {
+                setStatus(token, RefreshToken.Status.REVOKED);
+            }
+        }
+    }
+
+    private void setStatus(RefreshToken token, RefreshToken.Status status) {
+        append(encodeStatus(token.getTokenId(), status));
+        tokens.put(token.getTokenId(), copy(token, status));
+    }
+
+    private void index(RefreshToken token) {
+        tokens.put(token.getTokenId(), token);
+        families.computeIfAbsent(token.getFamilyId(), id -> ConcurrentHashMap.newKeySet()).add(token.getTokenId());
+        users.computeIfAbsent(token.getUsername(), name -> ConcurrentHashMap.newKeySet()).add(token.getTokenId());
+    }
+
+    private int purge(long now) {
+        int removed = 0;
+        for (RefreshToken token : tokens.values()) {
+            if (token.getExpiresAt() <= now) {
+                tokens.remove(token.getTokenId());
+                unindex(families, token.getFamilyId(), token.getTokenId());
+                unindex(users, token.getUsername(), token.getTokenId());
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static void unindex(Map<String, Set<String>> index, String key, String tokenId) {
+        index.computeIfPresent(key, (k, members) -> {
+            members.remove(tokenId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    // --- log file ---
+
+    private void append(byte[] payload) {
+        if (buffer.remaining() < ENTRY_HEADER + payload.length) {
+            compact();
+            if (buffer.remaining() < ENTRY_HEADER + payload.length) {
+                remap(Math.max(2L * buffer.capacity(), buffer.position() + ENTRY_HEADER + payload.length));
+            }
+        }
+        write(buffer, payload);
+    }
+
+    private static void write(MappedByteBuffer target, byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        target.putInt(payload.length);
+        target.putInt((int) crc.getValue());
+        target.put(payload);
+    }
+
+    /**
+     * Apply every intact entry of the log to the maps and position the buffer after the last one
+     *
+     * @return number of entries applied
+     */
+    private int replay() throws IOException {
+        int entries = 0;
+        while (buffer.remaining() >= ENTRY_HEADER) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Discarding torn refresh token log entry at offset {} in {}", start, path);
+                buffer.position(start);
+                break;
+            }
+            apply(payload);
+            entries++;
+        }
+        return entries;
+    }
+
+    private void apply(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        String tokenId = in.readUTF();
+        if (type == SAVE) {
+            RefreshToken token = new RefreshToken(tokenId, in.readUTF(), in.readUTF(), in.readLong());
+            token.setStatus(STATUSES[in.readByte()]);
+            index(token);
+        } else if (type == STATUS) {
+            RefreshToken.Status status = STATUSES[in.readByte()];
+            tokens.computeIfPresent(tokenId, (id, token) -> copy(token, status));
+        }
+    }
+
+    /**
+     * Rewrite the log with one SAVE entry per current record, then swap it in for the old file
+     */
+    private void compact() {
+        List<byte[]> entries = new ArrayList<>(tokens.size());
+        long size = 0;
+        long now = System.currentTimeMillis();
+        for (RefreshToken token : tokens.values()) {
+            if (token.getExpiresAt() <= now) {
+                continue; // still indexed until the next purge, but never needed after a restart
+            }
+            byte[] payload = encode(token);
+            entries.add(payload);
+            size += ENTRY_HEADER + payload.length;
+        }
+        long capacity = Math.max(initialSize, 2 * size);
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer target = out.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                for (byte[] payload : entries) {
+                    write(target, payload);
+                }
+                target.force();
+            }
+            Files.move(compacted, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel.close();
+            map(capacity);
+            buffer.position((int) size);
+            compactedSize = (int) size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact refresh token log " + path, e);
+        }
+    }
+
+    private void remap(long capacity) {
+        int position = buffer.position();
+        try {
+            buffer.force();
+            channel.close();
+            map(capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow refresh token log " + path, e);
+        }
+        buffer.position(position);
+    }
+
+    private void map(long capacity) throws IOException {
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Refresh token log would exceed 2 GB: " + path);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private static byte[] encode(RefreshToken token) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(SAVE);
+            out.writeUTF(token.getTokenId());
+            out.writeUTF(token.getFamilyId());
+            out.writeUTF(token.getUsername());
+            out.writeLong(token.getExpiresAt());
+            out.writeByte(token.getStatus().ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeStatus(String tokenId, RefreshToken.Status status) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(STATUS);
+            out.writeUTF(tokenId);
+            out.writeByte(status.ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static RefreshToken copy(RefreshToken token, RefreshToken.Status status) {
+        RefreshToken copy = new RefreshToken(token.getTokenId(), token.getFamilyId(),
+                token.getUsername(), token.getExpiresAt());
+        copy.setStatus(status);
+        return copy;
+    }
+}
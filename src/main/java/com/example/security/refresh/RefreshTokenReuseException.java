@@ -0,0 +1,12 @@
+package com.example.security.refresh;
+
+/**
+ * Thrown when an already rotated refresh token is presented again.
+ * The whole token family has been revoked by the time this is thrown. Mapped to 401 Unauthorized.
+ */
+public class RefreshTokenReuseException extends RuntimeException {
+
+    public RefreshTokenReuseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.security.refresh;
+
+import com.example.security.config.JwtConfig;
+import com.example.security.config.RefreshTokenConfig;
+import com.example.security.entity.RefreshToken;
+import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.jwt.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Refresh Token Service
+ *
+ * Refresh token rotation with reuse detection. Every refresh token is recorded in the
+ * RefreshTokenStore under its jti; tokens rotated from one another form a family (one login).
+ * A refresh consumes the presented token and links the new one into the same family.
+ * Presenting a token that was already consumed means it leaked: the whole family is revoked,
+ * so neither the attacker nor the victim can keep refreshing, and the user has to log in again.
+ *
+ * Concurrent refreshes of the same family are serialized on one of a fixed set of striped
+ * locks (chosen by family id), so unrelated sessions never contend and a replay cannot slip
+ * a revocation in between consuming a token and recording its successor. The locks are per
+ * node; across nodes the store's conditional consume() is what decides the winner.
+ *
+ * With refresh-token.format=opaque the refresh token is not a JWT but a random 32-character
+ * handle: refreshing is a single store lookup without any parsing or signature check, and a
+ * handle is revoked the moment its record is. Only the client ever sees the handle; the record
+ * is keyed by its SHA-256 (base64url, cut to the 36-character token id column), so the database,
+ * the mapped log and its compactions hold nothing that can be presented as a refresh token.
+ * Handles and JWT refresh tokens are both accepted whatever the format, so switching formats
+ * logs nobody out.
+ *
+ * Metrics: refresh.token.reuse (counter)
+ */
+@Component
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder HANDLE_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final int HANDLE_LENGTH = 32;
+    private static final int HANDLE_ID_LENGTH = 36;
+
+    private final RefreshTokenStore store;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final JwtConfig jwtConfig;
+    private final ReentrantLock[] stripes;
+    private final boolean opaque;
+    private final Counter reuseDetected;
+
+    public RefreshTokenService(RefreshTokenStore store, JwtTokenUtil jwtTokenUtil, JwtConfig jwtConfig,
+                               RefreshTokenConfig config, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtConfig = jwtConfig;
+        int count = Integer.highestOneBit(Math.max(1, config.getLockStripes() - 1) << 1); // power of two
+        this.stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.opaque = config.isOpaque();
+        this.reuseDetected = meterRegistry.counter("refresh.token.reuse");
+    }
+
+    /**
+     * Issue an access/refresh pair that starts a new token family (login, registration)
+     */
+    public Map<String, String> generateTokenPair(UserDetails userDetails) {
+        return issue(userDetails, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Consume a verified refresh token and issue the next pair of its family
+     *
+     * @throws RefreshTokenReuseException if the token was already used; its family is revoked
+     */
+    public Map<String, String> rotate(VerifiedToken token, UserDetails userDetails) {
+        RefreshToken current = token.getId() != null ? store.find(token.getId()) : null;
+        if (current == null) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        return rotate(current, userDetails);
+    }
+
+    /**
+     * Consume a resolved refresh token record and issue the next pair of its family
+     *
+     * @throws RefreshTokenReuseException if the token was already used; its family is revoked
+     */
+    public Map<String, String> rotate(RefreshToken current, UserDetails userDetails) {
+        if (!current.getUsername().equals(userDetails.getUsername())) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+
+        ReentrantLock lock = lockFor(current.getFamilyId());
+        lock.lock();
+        try {
+            if (!store.consume(current.getTokenId())) {
+                store.revokeFamily(current.getFamilyId());
+                reuseDetected.increment();
+                throw new RefreshTokenReuseException("Refresh token reuse detected, session revoked");
+            }
+            return issue(userDetails, current.getFamilyId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a presented refresh token is an opaque handle rather than a JWT
+     */
+    public static boolean isHandle(String refreshToken) {
+        return refreshToken.indexOf('.') < 0;
+    }
+
+    /**
+     * Look up the record behind an opaque handle. Consumed and revoked records are returned
+     * as well, so that rotate() can detect the reuse.
+     *
+     * @throws RuntimeException if the handle is unknown or expired
+     */
+    public RefreshToken resolve(String handle) {
+        RefreshToken current = store.find(handleId(handle));
+        if (current == null && handle.length() == HANDLE_LENGTH) {
+            // issued before handles were hashed; a stored hash (36 characters) never gets here
+            current = store.find(handle);
+        }
+        if (current == null || current.getExpiresAt() <= System.currentTimeMillis()) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        return current;
+    }
+
+    /**
+     * Revoke the family of a verified refresh token (logout); unknown tokens are ignored
+     */
+    public void revokeFamily(VerifiedToken token) {
+        RefreshToken current = token.getId() != null ? store.find(token.getId()) : null;
+        if (current != null) {
+            revokeFamily(current);
+        }
+    }
+
+    /**
+     * Revoke the family of a resolved refresh token record (logout)
+     */
+    public void revokeFamily(RefreshToken current) {
+        store.revokeFamily(current.getFamilyId());
+    }
+
+    /**
+     * Revoke every refresh token of a user, e.g. when the account is deleted or locked
+     */
+    public void revokeUser(String username) {
+        store.revokeUser(username);
+    }
+
+    @Scheduled(fixedDelayString = "${refresh-token.purge-interval:PT10M}")
+    public void purgeExpired() {
+        store.purgeExpired(System.currentTimeMillis());
+    }
+
+    private Map<String, String> issue(UserDetails userDetails, String familyId) {
+        String handle = opaque ? newHandle() : null;
+        String tokenId = opaque ? handleId(handle) : UUID.randomUUID().toString();
+        long expiresAt = System.currentTimeMillis() + jwtConfig.getRefreshTokenExpiration();
+        store.save(new RefreshToken(tokenId, familyId, userDetails.getUsername(), expiresAt));
+
+        Map<String, String> tokens = new HashMap<>();
+        tokens.put("accessToken", jwtTokenUtil.generateAccessToken(userDetails));
+        tokens.put("refreshToken", opaque ? handle : jwtTokenUtil.generateRefreshToken(userDetails, tokenId));
+        return tokens;
+    }
+
+    /**
+     * 192 random bits, base64url: 32 characters
+     */
+    private static String newHandle() {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        return HANDLE_ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * Store key of a handle: SHA-256, base64url, first 36 characters (216 bits)
+     */
+    static String handleId(String handle) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(handle.getBytes(StandardCharsets.US_ASCII));
+            return HANDLE_ENCODER.encodeToString(digest).substring(0, HANDLE_ID_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ReentrantLock lockFor(String familyId) {
+        int h = familyId.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.security.refresh;
+
+import com.example.security.entity.RefreshToken;
+
+/**
+ * Refresh Token Store
+ * Persistence for refresh token rotation records. Selected with refresh-token.store.
+ */
+public interface RefreshTokenStore {
+
+    void save(RefreshToken token);
+
+    /**
+     * @return the record for a jti, or null if it was never issued or has been purged
+     */
+    RefreshToken find(String tokenId);
+
+    /**
+     * Atomically move a token from ACTIVE to CONSUMED
+     *
+     * @return false if the token was not active (already consumed, revoked or unknown)
+     */
+    boolean consume(String tokenId);
+
+    void revokeFamily(String familyId);
+
+    void revokeUser(String username);
+
+    /**
+     * Delete records whose tokens expired at or before now
+     *
+     * @return number of records removed
+     */
+    int purgeExpired(long now);
+}
@@ -0,0 +1,50 @@
+package com.example.security.repository;
+
+import com.example.security.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Refresh Token Repository
+ * Persistence for refresh token rotation records, keyed by jti
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    /**
+     * Mark a consumed token, only if it is still active
+     *
+     * @return 1 if the token was active, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken t set t.status = :consumed where t.tokenId = :tokenId and t.status = :active")
+    int consume(@Param("tokenId") String tokenId,
+                @Param("active") RefreshToken.Status active,
+                @Param("consumed") RefreshToken.Status consumed);
+
+    /**
+     * Revoke every token of a family in one statement
+     */
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken t set t.status = :revoked where t.familyId = :familyId")
+    int revokeFamily(@Param("familyId") String familyId, @Param("revoked") RefreshToken.Status revoked);
+
+    /**
+     * Revoke every token of a user, e.g. when the account is deleted or locked
+     */
+    @Transactional
+    @Modifying
+    @Query("update RefreshToken t set t.status = :revoked where t.username = :username")
+    int revokeUser(@Param("username") String username, @Param("revoked") RefreshToken.Status revoked);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
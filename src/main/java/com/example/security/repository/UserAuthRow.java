@@ -0,0 +1,25 @@
+package com.example.security.repository;
+
+/**
+ * User Authentication Row
+ *
+ * Read-only projection of the columns authentication needs, roles as the role_mask bitmask.
+ * Turned into a UserPrincipal by CustomUserDetailsService; never a managed entity, so
+ * nothing is dirty-checked.
+ */
+public interface UserAuthRow {
+
+    String getUsername();
+
+    String getPassword();
+
+    boolean isEnabled();
+
+    boolean isAccountNonExpired();
+
+    boolean isAccountNonLocked();
+
+    boolean isCredentialsNonExpired();
+
+    int getRoleMask();
+}
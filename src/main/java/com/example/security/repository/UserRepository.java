@@ -2,7 +2,10 @@ package com.example.security.repository;
 
 import com.example.security.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -46,6 +49,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Authentication columns of a user by username: one single-row statement, no entity.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT u.username AS username, u.password AS password, u.enabled AS enabled, "
+            + "u.accountNonExpired AS accountNonExpired, u.accountNonLocked AS accountNonLocked, "
+            + "u.credentialsNonExpired AS credentialsNonExpired, u.roleMask AS roleMask "
+            + "FROM User u WHERE u.username = :username")
+    Optional<UserAuthRow> findAuthRowByUsername(@Param("username") String username);
+
+    /**
+     * Authentication columns of a user by email, see findAuthRowByUsername
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT u.username AS username, u.password AS password, u.enabled AS enabled, "
+            + "u.accountNonExpired AS accountNonExpired, u.accountNonLocked AS accountNonLocked, "
+            + "u.credentialsNonExpired AS credentialsNonExpired, u.roleMask AS roleMask "
+            + "FROM User u WHERE u.email = :email")
+    Optional<UserAuthRow> findAuthRowByEmail(@Param("email") String email);
+
     /**
      * Find user by OAuth2 provider and OAuth2 ID
      */
@@ -1,26 +1,45 @@
 package com.example.security.service;
 
 import com.example.security.config.JwtConfig;
+import com.example.security.crypto.PasswordHashingRejectedException;
 import com.example.security.dto.AuthResponse;
 import com.example.security.dto.LoginRequest;
 import com.example.security.dto.RegisterRequest;
 import com.example.security.dto.TokenResponse;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.entity.RefreshToken;
 import com.example.security.entity.User;
+import com.example.security.jwt.JwtAuthenticationFilter;
 import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.jwt.TokenAuthenticationCache;
+import com.example.security.jwt.TokenRenewalService;
+import com.example.security.jwt.TokenRevocationService;
+import com.example.security.jwt.VerifiedToken;
+import com.example.security.refresh.RefreshTokenService;
 import com.example.security.repository.UserRepository;
+import com.example.security.throttle.LoginAttemptLimiter;
+import com.example.security.throttle.LoginThrottledException;
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.UUID;
 
 /**
  * Service class for handling authentication and registration logic
@@ -46,6 +65,27 @@ public class AuthService {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private TokenAuthenticationCache tokenCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
+    @Autowired
+    private TokenRenewalService tokenRenewalService;
+
+    // compared against when there is no user, at the same BCrypt cost as real password hashes
+    private volatile String dummyPasswordHash;
+
     /**
      * Register a new user and return tokens
      */
@@ -66,10 +106,12 @@ public class AuthService {
         user.setRoles(roles);
 
         userRepository.save(user);
+        // the username/email may have been looked up (and remembered as unknown) before
+        userDetailsCache.evict(user);
 
-        // Generate tokens
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(user.getUsername());
-        Map<String, String> tokens = jwtTokenUtil.generateTokenPair(userDetails);
+        // Generate tokens from the user we just saved, no need to load it again
+        UserDetails userDetails = UserPrincipal.from(user);
+        Map<String, String> tokens = refreshTokenService.generateTokenPair(userDetails);
 
         return new TokenResponse(
             tokens.get("accessToken"),
@@ -82,17 +124,27 @@ public class AuthService {
      * Authenticate user and return tokens
      */
     public TokenResponse login(LoginRequest loginRequest) {
+        // Reject brute-force traffic before paying for a user lookup and BCrypt
+        String clientIp = currentClientAddress();
+        checkLoginAllowed(loginRequest.getUsername(), clientIp);
+
         // Authenticate user
-        Authentication authentication = authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                loginRequest.getUsername(), 
-                loginRequest.getPassword()
-            )
-        );
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(
+                    loginRequest.getUsername(), 
+                    loginRequest.getPassword()
+                )
+            );
+        } catch (BadCredentialsException e) {
+            recordLoginFailure(loginRequest.getUsername(), clientIp);
+            throw e;
+        }
 
         // Generate tokens
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        Map<String, String> tokens = jwtTokenUtil.generateTokenPair(userDetails);
+        Map<String, String> tokens = refreshTokenService.generateTokenPair(userDetails);
 
         return new TokenResponse(
             tokens.get("accessToken"),
@@ -105,18 +157,36 @@ public class AuthService {
      * Refresh access token using refresh token
      */
     public TokenResponse refreshToken(String refreshToken) {
-        // Validate refresh token
-        if (!jwtTokenUtil.validateRefreshToken(refreshToken)) {
+        if (refreshToken == null || refreshToken.isEmpty()) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+
+        // Opaque handle: one store lookup, no parsing or signature check
+        if (RefreshTokenService.isHandle(refreshToken)) {
+            RefreshToken current = refreshTokenService.resolve(refreshToken);
+            UserDetails userDetails = customUserDetailsService.loadUserByUsername(current.getUsername());
+            return tokenResponse(refreshTokenService.rotate(current, userDetails));
+        }
+
+        // Validate refresh token (a single parse yields both type and subject)
+        VerifiedToken token;
+        try {
+            token = jwtTokenUtil.verify(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new RuntimeException("Invalid refresh token");
+        }
+        if (!token.isRefreshToken() || tokenRevocationService.isRevoked(token)) {
             throw new RuntimeException("Invalid refresh token");
         }
 
-        // Extract username and load user details
-        String username = jwtTokenUtil.extractUsername(refreshToken);
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+        // Load user details for the token subject
+        UserDetails userDetails = customUserDetailsService.loadUserByUsername(token.getSubject());
 
-        // Generate new token pair
-        Map<String, String> tokens = jwtTokenUtil.generateTokenPair(userDetails);
+        // Consume the presented token and issue the next pair of its family (reuse revokes the family)
+        return tokenResponse(refreshTokenService.rotate(token, userDetails));
+    }
 
+    private TokenResponse tokenResponse(Map<String, String> tokens) {
         return new TokenResponse(
             tokens.get("accessToken"),
             tokens.get("refreshToken"),
@@ -124,26 +194,78 @@ public class AuthService {
         );
     }
 
+    /**
+     * Logout: revoke the given access token until it expires and drop any cached verification
+     * of it; revoke the whole family of the given refresh token, so it cannot mint new ones
+     */
+    public void logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            try {
+                tokenRevocationService.revoke(jwtTokenUtil.verify(accessToken));
+            } catch (JwtException | IllegalArgumentException e) {
+                // invalid or expired tokens cannot authenticate anyway
+            }
+            tokenCache.invalidate(accessToken);
+        }
+        if (refreshToken != null && !refreshToken.isEmpty()) {
+            revokeRefreshFamily(refreshToken);
+        }
+    }
+
+    private void revokeRefreshFamily(String refreshToken) {
+        if (RefreshTokenService.isHandle(refreshToken)) {
+            RefreshToken current;
+            try {
+                current = refreshTokenService.resolve(refreshToken);
+            } catch (RuntimeException e) {
+                return; // unknown or expired handles cannot refresh anyway
+            }
+            refreshTokenService.revokeFamily(current);
+            return;
+        }
+        try {
+            VerifiedToken token = jwtTokenUtil.verify(refreshToken);
+            if (token.isRefreshToken()) {
+                refreshTokenService.revokeFamily(token);
+            }
+        } catch (JwtException | IllegalArgumentException e) {
+            // invalid or expired tokens cannot refresh anyway
+        }
+    }
+
     /**
      * Login a user with email
      */
     public AuthResponse loginWithEmail(String email, String password) {
+        String clientIp = currentClientAddress();
         try {
+            // Reject brute-force traffic before paying for a user lookup and BCrypt
+            checkLoginAllowed(email, clientIp);
+
             // First, find user by email
-            Optional<User> userOpt = userRepository.findByEmail(email);
-            if (userOpt.isEmpty()) {
-                return AuthResponse.error("User not found with this email");
+            UserPrincipal user;
+            try {
+                user = customUserDetailsService.loadUserByEmail(email);
+            } catch (UsernameNotFoundException e) {
+                // Same BCrypt work and answer as a wrong password, so unknown emails are not revealed
+                passwordEncoder.matches(password, dummyPasswordHash());
+                recordLoginFailure(email, clientIp);
+                return AuthResponse.error("Invalid email or password");
             }
             
-            User user = userOpt.get();
-            
             // Use username for authentication
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                    user.getUsername(),
-                    password
-                )
-            );
+            Authentication authentication;
+            try {
+                authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                        user.getUsername(),
+                        password
+                    )
+                );
+            } catch (BadCredentialsException e) {
+                recordLoginFailure(email, clientIp);
+                throw e;
+            }
 
             // Set authentication in security context
             SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -151,17 +273,20 @@ public class AuthService {
             // Get the first role
             String role = user.getRoles().iterator().next();
 
-            // Generate tokens
-            UserDetails userDetails = customUserDetailsService.loadUserByUsername(user.getUsername());
-            Map<String, String> tokens = jwtTokenUtil.generateTokenPair(userDetails);
+            // Generate tokens for the authenticated principal
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            String accessToken = jwtTokenUtil.generateAccessToken(userDetails);
 
             return AuthResponse.success(
                 "Login successful", 
                 user.getUsername(), 
                 role,
-                tokens.get("accessToken")
+                accessToken
             );
 
+        } catch (PasswordHashingRejectedException | LoginThrottledException e) {
+            // overload and throttling are not credentials problems, let the client retry later
+            throw e;
         } catch (Exception e) {
             return AuthResponse.error("Invalid email or password");
         }
@@ -169,37 +294,41 @@ public class AuthService {
 
     /**
      * Get current user info
+     *
+     * Answers from the principal JwtAuthenticationFilter already built for this request's
+     * token: no database access and, unless reissue is requested, no token signing.
+     *
+     * @param reissue also mint a fresh access token for the caller, unless its session is too old
      */
-    public AuthResponse getCurrentUser() {
+    public AuthResponse getCurrentUser(boolean reissue) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         
         // Check if user is authenticated and not anonymous
         if (authentication == null || 
             !authentication.isAuthenticated() || 
-            "anonymousUser".equals(authentication.getName())) {
+            !(authentication.getPrincipal() instanceof UserDetails userDetails)) {
             return AuthResponse.error("No user logged in");
         }
 
-        String username = authentication.getName();
-        
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        
-        if (userOpt.isEmpty()) {
-            return AuthResponse.error("User not found");
+        String role = authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .filter(authority -> authority.startsWith("ROLE_"))
+            .map(authority -> authority.substring(5))
+            .findFirst()
+            .orElse(null);
+
+        // Re-issuing is opt-in; only the access token is returned, so no refresh token is minted.
+        // The replacement continues the session of the request's token (same auth_time and cap).
+        String accessToken = null;
+        if (reissue && currentToken() instanceof VerifiedToken token) {
+            accessToken = tokenRenewalService.reissue(token, userDetails);
         }
 
-        User user = userOpt.get();
-        String role = user.getRoles().iterator().next();
-
-        // Generate tokens
-        UserDetails userDetails = customUserDetailsService.loadUserByUsername(user.getUsername());
-        Map<String, String> tokens = jwtTokenUtil.generateTokenPair(userDetails);
-
         return AuthResponse.success(
             "Current user info", 
-            user.getUsername(), 
+            userDetails.getUsername(), 
             role,
-            tokens.get("accessToken")
+            accessToken
         );
     }
 
@@ -241,6 +370,7 @@ public class AuthService {
         user.setPictureUrl(oauth2Picture);
         
         userRepository.save(user);
+        userDetailsCache.evict(user);
         
         return Map.of(
             "success", true,
@@ -253,4 +383,45 @@ public class AuthService {
             )
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Throttle check for a login identifier (username or email) and client address
+     */
+    private void checkLoginAllowed(String identifier, String clientIp) {
+        loginAttemptLimiter.checkAllowed(identifier, clientIp);
+    }
+
+    private void recordLoginFailure(String identifier, String clientIp) {
+        loginAttemptLimiter.recordFailure(identifier, clientIp);
+    }
+
+    private String dummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordEncoder.encode(UUID.randomUUID().toString());
+            dummyPasswordHash = hash;
+        }
+        return hash;
+    }
+
+    /**
+     * The verified token JwtAuthenticationFilter authenticated the current request with, if any
+     */
+    private static Object currentToken() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                ? attributes.getAttribute(JwtAuthenticationFilter.TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+    }
+
+    /**
+     * Remote address of the current HTTP request, if any
+     */
+    private static String currentClientAddress() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            return servletAttributes.getRequest().getRemoteAddr();
+        }
+        return null;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.security.service;
 
+import com.example.security.config.UserCacheConfig;
+import com.example.security.dto.UserPrincipal;
 import com.example.security.entity.User;
+import com.example.security.repository.UserAuthRow;
 import com.example.security.repository.UserRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -18,51 +22,84 @@ import org.springframework.transaction.annotation.Transactional;
  * 
  * Key Features:
  * - Implements UserDetailsService interface
- * - Loads users from database using UserRepository
+ * - Loads users from database using UserRepository (a read-only projection, not the entity)
  * - Handles UsernameNotFoundException when user not found
- * - Uses @Transactional for database operations
+ * - Serves repeat lookups from the UserDetailsCache instead of the database
+ * - Runs at most one query per username/email at a time; concurrent callers share its result
  * 
  * Spring Security Integration:
  * - Spring Security calls loadUserByUsername() during authentication
- * - Returns UserDetails object (our User entity implements this)
+ * - Returns an immutable UserPrincipal snapshot of our User entity
  * - Throws UsernameNotFoundException if user doesn't exist
  */
 @Service
-@Transactional
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
+    private final UserDetailsCache userDetailsCache;
+
+    private final SingleFlight<String, UserPrincipal> usernameLoads;
+
+    private final SingleFlight<String, UserPrincipal> emailLoads;
+
    
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, UserDetailsCache userDetailsCache,
+                                    UserCacheConfig userCacheConfig, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.userDetailsCache = userDetailsCache;
+        // coalesced loads are counted in user.load.byUsername.* / user.load.byEmail.*
+        this.usernameLoads = new SingleFlight<>("user.load.byUsername", userCacheConfig.getLoadTimeout(), meterRegistry);
+        this.emailLoads = new SingleFlight<>("user.load.byEmail", userCacheConfig.getLoadTimeout(), meterRegistry);
     }
 
     /**
      * Load a user by their username.
      * 
      * This method is called by Spring Security during the authentication process.
-     * It searches the database for a user with the given username and returns
-     * a UserDetails object that Spring Security can use for authentication.
+     * It returns an immutable snapshot of the user from the UserDetailsCache, and only
+     * searches the database on a cache miss. Concurrent misses for the same username share
+     * a single query (with or without the cache).
      * 
      * @param username the username to search for
      * @return UserDetails object containing user information
      * @throws UsernameNotFoundException if the user is not found
      */
     @Override
-    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Find user in database by username
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException(
-                        "User not found with username: " + username));
-
-        // Log successful user loading (for debugging)
-        System.out.println("Loaded user: " + user.getUsername() + " with roles: " + user.getRoles());
-
-        // Return the user (our User entity implements UserDetails)
+    public UserPrincipal loadUserByUsername(String username) throws UsernameNotFoundException {
+        UserPrincipal user = userDetailsCache.getByUsername(username, key -> usernameLoads.load(key,
+                name -> userRepository.findAuthRowByUsername(name)
+                        .map(CustomUserDetailsService::toPrincipal)
+                        .orElse(null)));
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with username: " + username);
+        }
         return user;
     }
 
+    /**
+     * Store a re-encoded password hash.
+     * 
+     * Called by DaoAuthenticationProvider after a successful login when the stored hash
+     * uses an old format or a BCrypt cost other than the calibrated one.
+     * 
+     * @param user the authenticated user
+     * @param newPassword the new encoded password
+     * @return the user with the new password
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return userRepository.findByUsername(user.getUsername())
+                .map(entity -> {
+                    entity.setPassword(newPassword);
+                    User saved = userRepository.save(entity);
+                    userDetailsCache.evict(saved);
+                    return (UserDetails) UserPrincipal.from(saved);
+                })
+                .orElse(user);
+    }
+
     /**
      * Create a new user in the database.
      * 
@@ -71,8 +108,11 @@ public class CustomUserDetailsService implements UserDetailsService {
      * @param user the user to create
      * @return the saved user with generated ID
      */
+    @Transactional
     public User createUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userDetailsCache.evict(saved);
+        return saved;
     }
 
     /**
@@ -87,10 +127,22 @@ public class CustomUserDetailsService implements UserDetailsService {
 
 
     
-    public UserDetails loadUserByEmail(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-        
+    public UserPrincipal loadUserByEmail(String email) throws UsernameNotFoundException {
+        UserPrincipal user = userDetailsCache.getByEmail(email, key -> emailLoads.load(key,
+                address -> userRepository.findAuthRowByEmail(address)
+                        .map(CustomUserDetailsService::toPrincipal)
+                        .orElse(null)));
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
         return user;
     }
-} 
\ No newline at end of file
+
+    private static UserPrincipal toPrincipal(UserAuthRow row) {
+        int flags = (row.isEnabled() ? UserPrincipal.ENABLED : 0)
+                | (row.isAccountNonExpired() ? UserPrincipal.ACCOUNT_NON_EXPIRED : 0)
+                | (row.isAccountNonLocked() ? UserPrincipal.ACCOUNT_NON_LOCKED : 0)
+                | (row.isCredentialsNonExpired() ? UserPrincipal.CREDENTIALS_NON_EXPIRED : 0);
+        return new UserPrincipal(row.getUsername(), row.getPassword(), row.getRoleMask(), flags);
+    }
+} 
@@ -0,0 +1,83 @@
+package com.example.security.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Single Flight
+ *
+ * Collapses concurrent loads of the same key into one: the first caller runs the loader on its
+ * own thread, every caller arriving while it runs waits for and shares that result (or its
+ * exception). Nothing is cached - once the load finishes the next call loads again.
+ *
+ * Waiters give up after the timeout with an AuthenticationServiceException instead of starting
+ * their own load, so a slow backend is not hit harder exactly when it is struggling; callers
+ * treat it like any other failed lookup rather than as a server error.
+ *
+ * Metrics: {name}.executed, {name}.coalesced, {name}.timeouts (counters)
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final long timeoutNanos;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timeouts;
+
+    public SingleFlight(String name, Duration timeout, MeterRegistry meterRegistry) {
+        this.timeoutNanos = timeout.toNanos();
+        this.executed = meterRegistry.counter(name + ".executed");
+        this.coalesced = meterRegistry.counter(name + ".coalesced");
+        this.timeouts = meterRegistry.counter(name + ".timeouts");
+    }
+
+    /**
+     * Load the key, or join a load of the same key that is already running
+     */
+    public V load(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running == null) {
+            executed.increment();
+            try {
+                V value = loader.apply(key);
+                flight.complete(value);
+                return value;
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(key, flight);
+            }
+        }
+
+        coalesced.increment();
+        try {
+            return running.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            throw new AuthenticationServiceException("Timed out waiting for the in-flight load of " + key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationServiceException("Interrupted waiting for the in-flight load of " + key);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.security.service;
+
+import com.example.security.config.IntrospectionConfig;
+import com.example.security.config.JwtConfig;
+import com.example.security.dto.TokenIntrospection;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.jwt.TokenAuthenticationCache;
+import com.example.security.jwt.TokenRevocationService;
+import com.example.security.jwt.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Token Introspection Service
+ *
+ * Verifies batches of access tokens for API gateways. Tokens are verified in parallel on a
+ * dedicated, core-count sized pool with a bounded queue; when the queue is full the request
+ * thread verifies the token itself (CallerRunsPolicy), which throttles oversized bursts
+ * without rejecting them. Results are handed to the caller in completion order.
+ *
+ * A token is active if it verifies, is an access token, is not revoked and its user is
+ * enabled and not locked. Roles come from the token cache, the token's own claims
+ * (stateless mode) or the cached user snapshot, in that order.
+ *
+ * Metrics: introspection.tokens{active=true|false}, introspection.queue.depth (gauge)
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final JwtTokenUtil jwtTokenUtil;
+    private final JwtConfig jwtConfig;
+    private final TokenAuthenticationCache tokenCache;
+    private final TokenRevocationService revocationService;
+    private final CustomUserDetailsService userDetailsService;
+    private final ThreadPoolExecutor executor;
+
+    private final Counter activeTokens;
+    private final Counter inactiveTokens;
+
+    public TokenIntrospectionService(JwtTokenUtil jwtTokenUtil,
+                                     JwtConfig jwtConfig,
+                                     TokenAuthenticationCache tokenCache,
+                                     TokenRevocationService revocationService,
+                                     CustomUserDetailsService userDetailsService,
+                                     IntrospectionConfig config,
+                                     MeterRegistry meterRegistry) {
+        this.jwtTokenUtil = jwtTokenUtil;
+        this.jwtConfig = jwtConfig;
+        this.tokenCache = tokenCache;
+        this.revocationService = revocationService;
+        this.userDetailsService = userDetailsService;
+        int poolSize = config.resolvePoolSize();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())),
+                new IntrospectionThreadFactory(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.activeTokens = meterRegistry.counter("introspection.tokens", "active", "true");
+        this.inactiveTokens = meterRegistry.counter("introspection.tokens", "active", "false");
+        Gauge.builder("introspection.queue.depth", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Introspect every token in parallel and pass each result to the sink as soon as it is ready.
+     * The sink is only ever called from the calling thread.
+     */
+    public void introspectAll(List<String> tokens, Consumer<TokenIntrospection> sink) throws InterruptedException {
+        CompletionService<TokenIntrospection> completion = new ExecutorCompletionService<>(executor);
+        for (int i = 0; i < tokens.size(); i++) {
+            int index = i;
+            String token = tokens.get(i);
+            completion.submit(() -> introspect(index, token));
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            try {
+                sink.accept(completion.take().get());
+            } catch (ExecutionException e) {
+                // introspect() does not throw; an Error in a worker is not the client's problem
+                throw new IllegalStateException("Token introspection failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Introspect a single token
+     */
+    public TokenIntrospection introspect(int index, String token) {
+        TokenIntrospection result = check(index, token);
+        (result.isActive() ? activeTokens : inactiveTokens).increment();
+        return result;
+    }
+
+    private TokenIntrospection check(int index, String token) {
+        if (token == null || token.isEmpty()) {
+            return TokenIntrospection.inactive(index);
+        }
+
+        TokenAuthenticationCache.Entry cached = tokenCache.get(token);
+        if (cached != null) {
+            VerifiedToken verified = cached.getToken();
+            if (revocationService.isRevoked(verified)) {
+                return TokenIntrospection.inactive(index);
+            }
+            return activeResult(index, verified, cached.getPrincipal());
+        }
+
+        VerifiedToken verified;
+        try {
+            verified = jwtTokenUtil.verify(token);
+        } catch (RuntimeException e) {
+            return TokenIntrospection.inactive(index);
+        }
+        if (!verified.isAccessToken() || verified.getSubject() == null || revocationService.isRevoked(verified)) {
+            return TokenIntrospection.inactive(index);
+        }
+
+        UserDetails principal = jwtConfig.isStateless() ? jwtTokenUtil.toPrincipal(verified) : null;
+        if (principal == null) {
+            try {
+                principal = userDetailsService.loadUserByUsername(verified.getSubject());
+            } catch (RuntimeException e) {
+                return TokenIntrospection.inactive(index);
+            }
+        }
+        return activeResult(index, verified, principal);
+    }
+
+    private static TokenIntrospection activeResult(int index, VerifiedToken token, UserDetails principal) {
+        if (!principal.isEnabled() || !principal.isAccountNonLocked() || !principal.isAccountNonExpired()) {
+            return TokenIntrospection.inactive(index);
+        }
+        return TokenIntrospection.active(index, token.getSubject(), UserPrincipal.rolesOf(principal),
+                token.getExpiresAt() / 1000);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static final class IntrospectionThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "token-introspection-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
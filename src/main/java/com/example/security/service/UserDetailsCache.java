@@ -0,0 +1,140 @@
+package com.example.security.service;
+
+import com.example.security.config.UserCacheConfig;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * User Details Cache
+ *
+ * Bounded, TTL-evicting cache of immutable UserPrincipal snapshots in front of
+ * UserRepository.findByUsername / findByEmail.
+ *
+ * Lookups that find no user are remembered for user-cache.negative-ttl, so scanners retrying
+ * non-existent accounts do not reach the database each time. Negative entries are kept even
+ * when the snapshot cache is disabled; they are bounded separately by negative-max-size.
+ *
+ * Every code path that creates a user or changes a user's password, roles, flags or OAuth2
+ * link must call evict(), otherwise authentication keeps seeing the old snapshot (or keeps
+ * reporting a new user as unknown) until the TTL runs out. On other nodes that is at most
+ * negative-ttl for a new user.
+ *
+ * Metrics: cache.gets (hit/miss), cache.evictions, cache.load.duration, tagged
+ * cache=userDetails.byUsername / userDetails.byEmail / userDetails.missingUsernames /
+ * userDetails.missingEmails.
+ */
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, UserPrincipal> byUsername;
+
+    private final Cache<String, UserPrincipal> byEmail;
+
+    private final Cache<String, Boolean> missingUsernames;
+
+    private final Cache<String, Boolean> missingEmails;
+
+    public UserDetailsCache(UserCacheConfig config, MeterRegistry meterRegistry) {
+        if (config.isEnabled()) {
+            this.byUsername = newCache(config);
+            this.byEmail = newCache(config);
+            CaffeineCacheMetrics.monitor(meterRegistry, byUsername, "userDetails.byUsername");
+            CaffeineCacheMetrics.monitor(meterRegistry, byEmail, "userDetails.byEmail");
+        } else {
+            this.byUsername = null;
+            this.byEmail = null;
+        }
+        if (config.getNegativeTtl() != null && !config.getNegativeTtl().isZero()) {
+            this.missingUsernames = newNegativeCache(config);
+            this.missingEmails = newNegativeCache(config);
+            CaffeineCacheMetrics.monitor(meterRegistry, missingUsernames, "userDetails.missingUsernames");
+            CaffeineCacheMetrics.monitor(meterRegistry, missingEmails, "userDetails.missingEmails");
+        } else {
+            this.missingUsernames = null;
+            this.missingEmails = null;
+        }
+    }
+
+    private static Cache<String, UserPrincipal> newCache(UserCacheConfig config) {
+        return Caffeine.newBuilder()
+                .maximumSize(config.getMaxSize())
+                .expireAfterWrite(config.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    private static Cache<String, Boolean> newNegativeCache(UserCacheConfig config) {
+        return Caffeine.newBuilder()
+                .maximumSize(config.getNegativeMaxSize())
+                .expireAfterWrite(config.getNegativeTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Cached snapshot for a username, loading it on a miss
+     *
+     * @param loader returns the snapshot, or null if there is no such user
+     * @return the snapshot, or null if there is no such user (remembered for negative-ttl)
+     */
+    public UserPrincipal getByUsername(String username, Function<String, UserPrincipal> loader) {
+        return get(byUsername, missingUsernames, username, loader);
+    }
+
+    /**
+     * Cached snapshot for an email address, loading it on a miss
+     */
+    public UserPrincipal getByEmail(String email, Function<String, UserPrincipal> loader) {
+        return get(byEmail, missingEmails, email, loader);
+    }
+
+    private static UserPrincipal get(Cache<String, UserPrincipal> cache, Cache<String, Boolean> missing,
+                                     String key, Function<String, UserPrincipal> loader) {
+        if (missing != null && missing.getIfPresent(key) != null) {
+            return null;
+        }
+        UserPrincipal user = cache != null ? cache.get(key, loader) : loader.apply(key);
+        if (user == null && missing != null) {
+            missing.put(key, Boolean.TRUE);
+        }
+        return user;
+    }
+
+    /**
+     * Forget every snapshot of a user, and that its username or email was unknown
+     */
+    public void evict(User user) {
+        invalidate(byUsername, missingUsernames, user.getUsername());
+        invalidate(byEmail, missingEmails, user.getEmail());
+    }
+
+    private static void invalidate(Cache<String, UserPrincipal> cache, Cache<String, Boolean> missing, String key) {
+        if (key == null) {
+            return;
+        }
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+        if (missing != null) {
+            missing.invalidate(key);
+        }
+    }
+
+    public void evictAll() {
+        if (byUsername != null) {
+            byUsername.invalidateAll();
+            byEmail.invalidateAll();
+        }
+        if (missingUsernames != null) {
+            missingUsernames.invalidateAll();
+            missingEmails.invalidateAll();
+        }
+    }
+}
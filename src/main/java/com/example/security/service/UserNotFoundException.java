@@ -0,0 +1,11 @@
+package com.example.security.service;
+
+/**
+ * Thrown when an admin operation names a user id that does not exist. Mapped to 404 Not Found.
+ */
+public class UserNotFoundException extends RuntimeException {
+
+    public UserNotFoundException(Long id) {
+        super("User not found with id: " + id);
+    }
+}
@@ -1,13 +1,17 @@
 package com.example.security.service;
 
 import com.example.security.entity.User;
+import com.example.security.jwt.TokenAuthenticationCache;
+import com.example.security.refresh.RefreshTokenService;
 import com.example.security.repository.UserRepository;
+import com.example.security.throttle.LoginAttemptLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * User Service with Role-Based Operations
@@ -18,6 +22,18 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TokenAuthenticationCache tokenCache;
+
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private LoginAttemptLimiter loginAttemptLimiter;
+
     /**
      * Get all users (ADMIN only)
      */
@@ -35,7 +51,7 @@ public class UserService {
         if (user.isPresent()) {
             return user.get();
         }
-        throw new RuntimeException("User not found with id: " + id);
+        throw new UserNotFoundException(id);
     }
 
     /**
@@ -46,11 +62,13 @@ public class UserService {
         Optional<User> userOpt = userRepository.findById(userId);
         if (userOpt.isPresent()) {
             User user = userOpt.get();
-            user.getRoles().clear();
-            user.addRole(role);
+            user.setRoles(Set.of(role));
             userRepository.save(user);
+            // cached snapshots and authentications still carry the old authorities
+            userDetailsCache.evict(user);
+            tokenCache.invalidateUser(user.getUsername());
         } else {
-            throw new RuntimeException("User not found with id: " + userId);
+            throw new UserNotFoundException(userId);
         }
     }
 
@@ -59,10 +77,31 @@ public class UserService {
      */
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteUser(Long id) {
-        if (userRepository.existsById(id)) {
+        Optional<User> userOpt = userRepository.findById(id);
+        if (userOpt.isPresent()) {
             userRepository.deleteById(id);
+            userDetailsCache.evict(userOpt.get());
+            tokenCache.invalidateUser(userOpt.get().getUsername());
+            refreshTokenService.revokeUser(userOpt.get().getUsername());
+        } else {
+            throw new UserNotFoundException(id);
+        }
+    }
+
+    /**
+     * Lift a login throttle lock on a user, by username and by email (ADMIN only)
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public void unlockUser(Long id) {
+        Optional<User> userOpt = userRepository.findById(id);
+        if (userOpt.isPresent()) {
+            User user = userOpt.get();
+            loginAttemptLimiter.unlock(user.getUsername());
+            if (user.getEmail() != null) {
+                loginAttemptLimiter.unlock(user.getEmail());
+            }
         } else {
-            throw new RuntimeException("User not found with id: " + id);
+            throw new UserNotFoundException(id);
         }
     }
 
@@ -0,0 +1,146 @@
+package com.example.security.throttle;
+
+import com.example.security.config.LoginThrottleConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Login Attempt Limiter
+ *
+ * Brute-force protection in front of the AuthenticationManager. Failed logins are counted per
+ * login identifier (username or email) and per client IP in constant-memory sliding windows;
+ * once either is over its limit, further attempts are rejected before any user lookup or
+ * BCrypt comparison happens. Identifiers that keep failing past login-throttle.lock-threshold
+ * are escalated to a temporary lock that rejects every attempt for login-throttle.lock-duration
+ * and then expires on its own, like the throttle itself. Nothing is persisted and existing
+ * sessions are left alone, so failed logins by a stranger cannot lock a user out for good.
+ * An admin can lift a lock early; failures counted before the unlock are then disregarded.
+ *
+ * Metrics: login.throttle.rejected{key=username|ip|locked}
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    private final LoginThrottleConfig config;
+    private final SlidingWindowCounter failuresByUsername;
+    private final SlidingWindowCounter failuresByIp;
+    private final Cache<String, Long> lockedUntil;
+    private final Cache<String, Integer> forgivenFailures;
+    private final LongSupplier clock;
+    private final Counter rejectedByUsername;
+    private final Counter rejectedByIp;
+    private final Counter rejectedLocked;
+
+    @Autowired
+    public LoginAttemptLimiter(LoginThrottleConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::currentTimeMillis);
+    }
+
+    LoginAttemptLimiter(LoginThrottleConfig config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        long windowMillis = config.getWindow().toMillis();
+        this.failuresByUsername = new SlidingWindowCounter(config.getSlots(), windowMillis, clock);
+        this.failuresByIp = new SlidingWindowCounter(config.getSlots(), windowMillis, clock);
+        // the deadline decides; expiry only keeps the map from holding stale locks
+        this.lockedUntil = Caffeine.newBuilder()
+                .maximumSize(config.getSlots())
+                .expireAfterWrite(config.resolveLockDuration())
+                .build();
+        // the sliding estimate forgets a failure after at most two windows
+        this.forgivenFailures = Caffeine.newBuilder()
+                .maximumSize(config.getSlots())
+                .expireAfterWrite(config.getWindow().multipliedBy(2))
+                .build();
+        this.rejectedByUsername = meterRegistry.counter("login.throttle.rejected", "key", "username");
+        this.rejectedByIp = meterRegistry.counter("login.throttle.rejected", "key", "ip");
+        this.rejectedLocked = meterRegistry.counter("login.throttle.rejected", "key", "locked");
+    }
+
+    /**
+     * Reject the attempt if the identifier or the client IP failed too often recently.
+     * Throttled attempts still count against the identifier, so an attacker who keeps going
+     * eventually reaches the lock threshold.
+     *
+     * @throws LoginThrottledException if locked or over either limit
+     */
+    public void checkAllowed(String identifier, String clientIp) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long lockRemaining = identifier != null ? lockRemainingMillis(identifier) : 0;
+        if (lockRemaining > 0) {
+            rejectedLocked.increment();
+            throw new LoginThrottledException("Account temporarily locked after too many failed login attempts",
+                    Duration.ofMillis(lockRemaining));
+        }
+        if (clientIp != null && failuresByIp.estimate(clientIp) >= config.getMaxFailuresPerIp()) {
+            rejectedByIp.increment();
+            if (identifier != null) {
+                countFailure(identifier);
+            }
+            throw new LoginThrottledException("Too many failed login attempts from this address",
+                    retryAfter(failuresByIp));
+        }
+        if (identifier != null && failures(identifier, failuresByUsername.estimate(identifier)) >= config.getMaxFailuresPerUsername()) {
+            rejectedByUsername.increment();
+            countFailure(identifier);
+            throw new LoginThrottledException("Too many failed login attempts for this account",
+                    retryAfter(failuresByUsername));
+        }
+    }
+
+    /**
+     * Count a failed attempt
+     */
+    public void recordFailure(String identifier, String clientIp) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        if (clientIp != null) {
+            failuresByIp.increment(clientIp);
+        }
+        if (identifier != null) {
+            countFailure(identifier);
+        }
+    }
+
+    /**
+     * Lift the lock on an identifier and disregard the failures counted against it so far
+     */
+    public void unlock(String identifier) {
+        lockedUntil.invalidate(identifier);
+        forgivenFailures.put(identifier, failuresByUsername.estimate(identifier));
+    }
+
+    /**
+     * Count a failure against the identifier; reaching the lock threshold starts a temporary lock
+     */
+    private void countFailure(String identifier) {
+        int failures = failures(identifier, failuresByUsername.increment(identifier));
+        if (failures >= config.getLockThreshold() && lockRemainingMillis(identifier) == 0) {
+            lockedUntil.put(identifier, clock.getAsLong() + config.resolveLockDuration().toMillis());
+        }
+    }
+
+    private int failures(String identifier, int estimate) {
+        Integer forgiven = forgivenFailures.getIfPresent(identifier);
+        return forgiven == null ? estimate : Math.max(0, estimate - forgiven);
+    }
+
+    private long lockRemainingMillis(String identifier) {
+        Long until = lockedUntil.getIfPresent(identifier);
+        return until == null ? 0 : Math.max(0, until - clock.getAsLong());
+    }
+
+    private static Duration retryAfter(SlidingWindowCounter counter) {
+        return Duration.ofMillis(counter.millisUntilNextWindow());
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.security.throttle;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a login attempt is rejected by the brute-force limiter before any password check.
+ * Mapped to 429 Too Many Requests with a Retry-After header.
+ */
+public class LoginThrottledException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public LoginThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.security.throttle;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Sliding Window Counter
+ *
+ * Approximate per-key event counts over a sliding time window, in constant memory.
+ *
+ * Keys are hashed into a fixed count-min sketch (2 rows x slots) of striped cells, so memory
+ * does not grow with the number of distinct keys; a key's estimate is the minimum of its cells
+ * and can only over-count. Each cell is one long updated with CAS - no locks, no allocation:
+ *
+ *   bits 42-63 window number | bits 21-41 previous window count | bits 0-20 current window count
+ *
+ * The sliding count is the classic two-window approximation:
+ * previous * (1 - elapsed fraction of the current window) + current.
+ */
+public final class SlidingWindowCounter {
+
+    private static final int DEPTH = 2;
+    private static final int COUNT_BITS = 21;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int WINDOW_SHIFT = COUNT_BITS * 2;
+    private static final long WINDOW_MASK = (1L << (64 - WINDOW_SHIFT)) - 1;
+
+    private final AtomicLongArray cells;
+    private final int slotMask;
+    private final long windowMillis;
+    private final LongSupplier clock;
+    private final int[] seeds = new int[DEPTH];
+
+    public SlidingWindowCounter(int slots, long windowMillis) {
+        this(slots, windowMillis, System::currentTimeMillis);
+    }
+
+    SlidingWindowCounter(int slots, long windowMillis, LongSupplier clock) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        int width = Integer.highestOneBit(Math.max(2, slots - 1) << 1); // round up to a power of two
+        this.cells = new AtomicLongArray(DEPTH * width);
+        this.slotMask = width - 1;
+        this.windowMillis = windowMillis;
+        this.clock = clock;
+        // random seeds, so nobody can precompute keys that collide with a victim's
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i < DEPTH; i++) {
+            seeds[i] = random.nextInt();
+        }
+    }
+
+    /**
+     * Count one event for the key
+     *
+     * @return the sliding-window estimate including this event
+     */
+    public int increment(String key) {
+        long now = clock.getAsLong();
+        long window = (now / windowMillis) & WINDOW_MASK;
+        double elapsed = fractionElapsed(now);
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * (slotMask + 1) + (hash(key, seeds[row]) & slotMask);
+            estimate = Math.min(estimate, add(index, window, elapsed));
+        }
+        return (int) Math.ceil(estimate);
+    }
+
+    /**
+     * Sliding-window estimate for the key, without counting anything
+     */
+    public int estimate(String key) {
+        long now = clock.getAsLong();
+        long window = (now / windowMillis) & WINDOW_MASK;
+        double elapsed = fractionElapsed(now);
+        double estimate = Double.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = row * (slotMask + 1) + (hash(key, seeds[row]) & slotMask);
+            estimate = Math.min(estimate, read(cells.get(index), window, elapsed));
+        }
+        return (int) Math.ceil(estimate);
+    }
+
+    /**
+     * Time until the current window rolls over
+     */
+    public long millisUntilNextWindow() {
+        return windowMillis - (clock.getAsLong() % windowMillis);
+    }
+
+    private double add(int index, long window, double elapsed) {
+        while (true) {
+            long cell = cells.get(index);
+            long cellWindow = cell >>> WINDOW_SHIFT;
+            long current = cell & COUNT_MASK;
+            long previous = (cell >>> COUNT_BITS) & COUNT_MASK;
+
+            if (cellWindow == window) {
+                current = Math.min(current + 1, COUNT_MASK);
+            } else if (cellWindow == ((window - 1) & WINDOW_MASK)) {
+                previous = current;
+                current = 1;
+            } else {
+                previous = 0;
+                current = 1;
+            }
+
+            long next = (window << WINDOW_SHIFT) | (previous << COUNT_BITS) | current;
+            if (cells.compareAndSet(index, cell, next)) {
+                return previous * (1.0 - elapsed) + current;
+            }
+        }
+    }
+
+    private static double read(long cell, long window, double elapsed) {
+        long cellWindow = cell >>> WINDOW_SHIFT;
+        long current = cell & COUNT_MASK;
+        long previous = (cell >>> COUNT_BITS) & COUNT_MASK;
+        if (cellWindow == window) {
+            return previous * (1.0 - elapsed) + current;
+        }
+        if (cellWindow == ((window - 1) & WINDOW_MASK)) {
+            // the cell's current window is now the previous one
+            return current * (1.0 - elapsed);
+        }
+        return 0;
+    }
+
+    private double fractionElapsed(long now) {
+        return (double) (now % windowMillis) / windowMillis;
+    }
+
+    /**
+     * Seeded FNV-1a over the key's chars with a murmur3 finalizer
+     */
+    private static int hash(String key, int seed) {
+        int h = seed ^ 0x811c9dc5;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
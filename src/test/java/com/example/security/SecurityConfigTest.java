@@ -0,0 +1,157 @@
+package com.example.security;
+
+import com.example.security.authz.PathTrieAuthorizationManager;
+import com.example.security.config.AuthorizationConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchy;
+import org.springframework.security.access.hierarchicalroles.RoleHierarchyImpl;
+import org.springframework.security.access.prepost.PostFilter;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.access.prepost.PreFilter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.config.core.GrantedAuthorityDefaults;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the application's URL rules and method security interceptors.
+ */
+class SecurityConfigTest {
+
+    private static final Authentication ANONYMOUS = new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    private final PathTrieAuthorizationManager rules = SecurityConfig.authorizationRules().compile();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void batchIntrospectionIsForGatewaysOnly() {
+        assertFalse(granted(ANONYMOUS, "/api/auth/introspect/batch"));
+        assertFalse(granted(null, "/api/auth/introspect/batch"));
+        assertFalse(granted(user("USER", "MODERATOR"), "/api/auth/introspect/batch"));
+        assertTrue(granted(user("GATEWAY"), "/api/auth/introspect/batch"));
+        assertTrue(granted(user("ADMIN"), "/api/auth/introspect/batch"));
+    }
+
+    @Test
+    void otherAuthEndpointsStayPublic() {
+        assertTrue(granted(ANONYMOUS, "/api/auth/login"));
+        assertTrue(granted(ANONYMOUS, "/api/auth/refresh"));
+        assertTrue(granted(ANONYMOUS, "/api/auth/validate"));
+    }
+
+    @Test
+    void metricsAreForAdminsOnly() {
+        assertFalse(granted(user("USER"), "/actuator/metrics"));
+        assertFalse(granted(user("USER"), "/actuator/metrics/login.throttle.rejected"));
+        assertTrue(granted(user("ADMIN"), "/actuator/metrics/login.throttle.rejected"));
+        assertTrue(granted(user("USER"), "/actuator/health"));
+        assertFalse(granted(ANONYMOUS, "/actuator/health"));
+    }
+
+    @Test
+    void filterAnnotationsAreEnforced() {
+        Documents documents = methodSecured(new GenericApplicationContext());
+        SecurityContextHolder.getContext().setAuthentication(user("USER"));
+
+        assertEquals(List.of("public"), documents.save(new ArrayList<>(List.of("public", "secret"))));
+        assertEquals(List.of("alpha"), documents.list());
+    }
+
+    @Test
+    void expressionsSeeBeansAndTheRoleHierarchy() {
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("gate", Gate.class);
+        RoleHierarchyImpl hierarchy = new RoleHierarchyImpl();
+        hierarchy.setHierarchy("ROLE_ADMIN > ROLE_USER");
+        context.registerBean(RoleHierarchy.class, () -> hierarchy);
+        Documents documents = methodSecured(context);
+
+        SecurityContextHolder.getContext().setAuthentication(user("ADMIN"));
+        assertEquals("opened", documents.open());
+        assertEquals("read", documents.read());
+
+        SecurityContextHolder.getContext().setAuthentication(user("MODERATOR"));
+        assertThrows(AccessDeniedException.class, documents::read);
+    }
+
+    private static Documents methodSecured(GenericApplicationContext context) {
+        context.refresh();
+        MethodSecurityExpressionHandler expressionHandler = SecurityConfig.methodSecurityExpressionHandler(
+                context.getBeanProvider(GrantedAuthorityDefaults.class),
+                context.getBeanProvider(RoleHierarchy.class),
+                context);
+        ProxyFactory factory = new ProxyFactory(new Documents());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(SecurityConfig.preFilterAdvisor(expressionHandler));
+        factory.addAdvisor(SecurityConfig.preAuthorizeAdvisor(new AuthorizationConfig(), expressionHandler,
+                context.getBeanProvider(GrantedAuthorityDefaults.class),
+                context.getBeanProvider(RoleHierarchy.class)));
+        factory.addAdvisor(SecurityConfig.postAuthorizeAdvisor(expressionHandler));
+        factory.addAdvisor(SecurityConfig.postFilterAdvisor(expressionHandler));
+        return (Documents) factory.getProxy();
+    }
+
+    static class Documents {
+
+        @PreFilter("filterObject != 'secret'")
+        public List<String> save(List<String> documents) {
+            return documents;
+        }
+
+        @PostFilter("filterObject.startsWith('a')")
+        public List<String> list() {
+            return new ArrayList<>(List.of("alpha", "beta"));
+        }
+
+        @PreAuthorize("@gate.isOpen()")
+        public String open() {
+            return "opened";
+        }
+
+        @PreAuthorize("hasRole('USER')")
+        public String read() {
+            return "read";
+        }
+    }
+
+    static class Gate {
+
+        public boolean isOpen() {
+            return true;
+        }
+    }
+
+    private boolean granted(Authentication authentication, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        return rules.isGranted(() -> authentication, request);
+    }
+
+    private static Authentication user(String... roles) {
+        String[] authorities = new String[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            authorities[i] = "ROLE_" + roles[i];
+        }
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken("someone", null, authorities);
+        authentication.setAuthenticated(true);
+        return authentication;
+    }
+}
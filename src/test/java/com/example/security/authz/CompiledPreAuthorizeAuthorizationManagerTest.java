@@ -0,0 +1,115 @@
+package com.example.security.authz;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.util.SimpleMethodInvocation;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for compiled @PreAuthorize checks: same decisions as SpEL, fallback for the rest.
+ */
+class CompiledPreAuthorizeAuthorizationManagerTest {
+
+    @PreAuthorize("hasAnyRole('ADMIN', 'MODERATOR')")
+    static class Guarded {
+
+        public void classLevel() {
+        }
+
+        @PreAuthorize("hasRole('MODERATOR')")
+        public void moderatorOnly() {
+        }
+
+        @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+        public void adminAuthority() {
+        }
+
+        @PreAuthorize("hasRole('ADMIN') and principal.username == 'alice'")
+        public void expression() {
+        }
+    }
+
+    private final CompiledPreAuthorizeAuthorizationManager compiled = new CompiledPreAuthorizeAuthorizationManager();
+    private final PreAuthorizeAuthorizationManager spel = new PreAuthorizeAuthorizationManager();
+
+    @Test
+    void compilesRoleOnlyExpressions() {
+        assertEquals(2, CompiledPreAuthorizeAuthorizationManager.compile("hasRole('ADMIN')"));
+        assertEquals(6, CompiledPreAuthorizeAuthorizationManager.compile("hasAnyRole('ADMIN', \"MODERATOR\")"));
+        assertEquals(2, CompiledPreAuthorizeAuthorizationManager.compile(" hasRole ( 'ROLE_ADMIN' ) "));
+        assertEquals(1, CompiledPreAuthorizeAuthorizationManager.compile("hasAnyAuthority('ROLE_USER')"));
+
+        assertEquals(-1, CompiledPreAuthorizeAuthorizationManager.compile("hasAuthority('SCOPE_read')"));
+        assertEquals(-1, CompiledPreAuthorizeAuthorizationManager.compile("hasRole('admin')"));
+        assertEquals(-1, CompiledPreAuthorizeAuthorizationManager.compile("hasRole('ADMIN', 'USER')"));
+        assertEquals(-1, CompiledPreAuthorizeAuthorizationManager.compile("hasRole('SUPERUSER')"));
+        assertEquals(-1, CompiledPreAuthorizeAuthorizationManager.compile("hasRole('ADMIN') or hasRole('USER')"));
+        assertEquals(-1, CompiledPreAuthorizeAuthorizationManager.compile("isAuthenticated()"));
+    }
+
+    @Test
+    void decidesLikeSpel() throws Exception {
+        List<Authentication> callers = List.of(user("alice", "USER"), user("alice", "ADMIN"),
+                user("bob", "ADMIN"), user("carol", "MODERATOR"), user("dave", "USER", "MODERATOR"),
+                new TestingAuthenticationToken("eve", "", "SCOPE_read"));
+        for (String name : List.of("classLevel", "moderatorOnly", "adminAuthority", "expression")) {
+            SimpleMethodInvocation invocation = new SimpleMethodInvocation(new Guarded(), Guarded.class.getMethod(name));
+            for (Authentication caller : callers) {
+                assertEquals(spel.check(() -> caller, invocation).isGranted(),
+                        compiled.check(() -> caller, invocation).isGranted(),
+                        name + " for " + caller.getAuthorities());
+            }
+        }
+    }
+
+    @Test
+    void nestedChecksInOneRequestResolveTheCallerOnce() throws Exception {
+        AtomicInteger scans = new AtomicInteger();
+        Authentication caller = new TestingAuthenticationToken("alice", "", "ROLE_ADMIN") {
+            @Override
+            public Collection<GrantedAuthority> getAuthorities() {
+                scans.incrementAndGet();
+                return super.getAuthorities();
+            }
+        };
+        SimpleMethodInvocation outer = new SimpleMethodInvocation(new Guarded(), Guarded.class.getMethod("classLevel"));
+        SimpleMethodInvocation inner = new SimpleMethodInvocation(new Guarded(), Guarded.class.getMethod("adminAuthority"));
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        try {
+            assertTrue(compiled.check(() -> caller, outer).isGranted());
+            assertTrue(compiled.check(() -> caller, inner).isGranted());
+            assertEquals(1, scans.get());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        AuthorizationDecision withoutRequest = compiled.check(() -> caller, inner);
+        assertTrue(withoutRequest.isGranted());
+        assertEquals(2, scans.get());
+    }
+
+    private static Authentication user(String name, String... roles) {
+        String[] authorities = new String[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            authorities[i] = "ROLE_" + roles[i];
+        }
+        return new TestingAuthenticationToken(
+                new User(name, "", AuthorityUtils.createAuthorityList(authorities)), "", authorities);
+    }
+}
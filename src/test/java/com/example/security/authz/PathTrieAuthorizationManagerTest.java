@@ -0,0 +1,116 @@
+package com.example.security.authz;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the compiled URL rules: same first-match-wins decisions as the DSL.
+ */
+class PathTrieAuthorizationManagerTest {
+
+    private static final Authentication ANONYMOUS = new AnonymousAuthenticationToken("key", "anonymousUser",
+            AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+    private final PathTrieAuthorizationManager manager = new AuthorizationRules()
+            .requestMatchers("/public/**").permitAll()
+            .requestMatchers("/admin/reports/*/export").hasRole("MODERATOR")
+            .requestMatchers("/admin/**").hasRole("ADMIN")
+            .requestMatchers("/moderator/**").hasAnyRole("ADMIN", "MODERATOR")
+            .requestMatchers("/private/**", "/me").authenticated()
+            .requestMatchers("/closed/**").denyAll()
+            .anyRequest().authenticated()
+            .compile();
+
+    @Test
+    void permitAllNeverLooksAtTheAuthentication() {
+        Supplier<Authentication> untouchable = () -> {
+            throw new AssertionError("authentication requested for a permitAll route");
+        };
+        assertTrue(manager.isGranted(untouchable, request("/public/docs/index.html")));
+        assertTrue(manager.isGranted(untouchable, request("/public")));
+    }
+
+    @Test
+    void rolesAreMatchedByBitmask() {
+        assertTrue(granted(user("ADMIN"), "/admin/users"));
+        assertFalse(granted(user("USER"), "/admin/users"));
+        assertTrue(granted(user("MODERATOR"), "/moderator/queue"));
+        assertTrue(granted(user("USER", "ADMIN"), "/moderator/queue"));
+        assertFalse(granted(user("USER"), "/moderator/queue"));
+        assertFalse(granted(ANONYMOUS, "/admin/users"));
+    }
+
+    @Test
+    void firstDeclaredRuleWins() {
+        // the more specific rule is declared first, so a moderator may export but not browse /admin
+        assertTrue(granted(user("MODERATOR"), "/admin/reports/42/export"));
+        assertFalse(granted(user("ADMIN"), "/admin/reports/42/export"));
+        assertFalse(granted(user("MODERATOR"), "/admin/reports/42"));
+
+        AuthorizationRules rules = new AuthorizationRules()
+                .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/admin/reports/*/export").hasRole("MODERATOR");
+        PathTrieAuthorizationManager shadowed = rules.compile();
+        assertFalse(shadowed.isGranted(() -> user("MODERATOR"), request("/admin/reports/42/export")));
+    }
+
+    @Test
+    void wildcardsAndFallback() {
+        assertFalse(granted(user("MODERATOR"), "/admin/reports//export")); // "*" needs a non-empty segment
+        assertTrue(granted(user("USER"), "/me"));
+        assertFalse(granted(ANONYMOUS, "/me"));
+        assertFalse(granted(user("ADMIN"), "/closed/anything"));
+        assertTrue(granted(user("USER"), "/somewhere/else"));
+        assertFalse(granted(ANONYMOUS, "/somewhere/else"));
+        assertFalse(granted(null, "/private/x"));
+
+        PathTrieAuthorizationManager noFallback = new AuthorizationRules()
+                .requestMatchers("/public/**").permitAll()
+                .compile();
+        assertFalse(noFallback.isGranted(() -> user("ADMIN"), request("/other")));
+    }
+
+    @Test
+    void servletPathAndPathInfoAreCombined() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/public/a");
+        request.setServletPath("/public");
+        request.setPathInfo("/a");
+        assertTrue(manager.isGranted(() -> null, request));
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> new AuthorizationRules().requestMatchers("/a/**/b"));
+        assertThrows(IllegalArgumentException.class, () -> new AuthorizationRules().requestMatchers("/a/*.html"));
+        assertThrows(IllegalArgumentException.class, () -> new AuthorizationRules().requestMatchers("/users/{id}"));
+        assertThrows(IllegalArgumentException.class, () -> new AuthorizationRules().requestMatchers("relative"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new AuthorizationRules().requestMatchers("/x").hasRole("SUPERUSER"));
+    }
+
+    private boolean granted(Authentication authentication, String path) {
+        return manager.isGranted(() -> authentication, request(path));
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    private static Authentication user(String... roles) {
+        String[] authorities = new String[roles.length];
+        for (int i = 0; i < roles.length; i++) {
+            authorities[i] = "ROLE_" + roles[i];
+        }
+        return new TestingAuthenticationToken("alice", "", authorities);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.security.authz;
+
+import com.example.security.config.AuthorizationConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for skipping token work on permitAll routes, with opt-in routes and per-route counts.
+ */
+class PermitAllRoutesTest {
+
+    private final PathTrieAuthorizationManager manager = new AuthorizationRules()
+            .requestMatchers("/public/**").permitAll()
+            .requestMatchers("/api/auth/**").permitAll()
+            .requestMatchers("/admin/**").hasRole("ADMIN")
+            .anyRequest().authenticated()
+            .compile();
+
+    @Test
+    void skipsOnlyPermitAllRoutesThatDoNotReadTheUser() {
+        AuthorizationConfig config = new AuthorizationConfig();
+        config.setPrincipalRoutes(List.of("/public/hello", "/api/auth/me"));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PermitAllRoutes routes = new PermitAllRoutes(manager, config, registry);
+
+        assertTrue(routes.skipsTokenProcessing(request("/public/index.html")));
+        assertTrue(routes.skipsTokenProcessing(request("/api/auth/login")));
+        assertFalse(routes.skipsTokenProcessing(request("/public/hello")));
+        assertFalse(routes.skipsTokenProcessing(request("/api/auth/me")));
+        assertFalse(routes.skipsTokenProcessing(request("/admin/users")));
+        assertFalse(routes.skipsTokenProcessing(request("/elsewhere")));
+
+        assertEquals(1.0, count(registry, "/public/**", "skipped"));
+        assertEquals(1.0, count(registry, "/public/**", "processed"));
+        assertEquals(1.0, count(registry, "/api/auth/**", "skipped"));
+        assertEquals(1.0, count(registry, "/admin/**", "processed"));
+        assertEquals(1.0, count(registry, "anyRequest", "processed"));
+    }
+
+    @Test
+    void disabledProcessesEverything() {
+        AuthorizationConfig config = new AuthorizationConfig();
+        config.setSkipTokenOnPermitAll(false);
+        PermitAllRoutes routes = new PermitAllRoutes(manager, config, new SimpleMeterRegistry());
+
+        assertFalse(routes.skipsTokenProcessing(request("/public/index.html")));
+    }
+
+    private static double count(SimpleMeterRegistry registry, String route, String outcome) {
+        return registry.counter("jwt.filter.routes", "route", route, "outcome", outcome).count();
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        return request;
+    }
+}
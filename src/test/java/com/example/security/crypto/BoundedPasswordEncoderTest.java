@@ -0,0 +1,67 @@
+package com.example.security.crypto;
+
+import com.example.security.config.PasswordHashingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BoundedPasswordEncoder backpressure.
+ */
+class BoundedPasswordEncoderTest {
+
+    @Test
+    void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blocking = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return true;
+            }
+        };
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setPoolSize(1);
+        config.setQueueCapacity(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blocking, config, registry);
+
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            // one hash running, one waiting in the queue
+            callers.submit(() -> encoder.encode("a"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> encoder.encode("b"));
+            while (registry.get("password.hashing.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            PasswordHashingRejectedException rejected =
+                    assertThrows(PasswordHashingRejectedException.class, () -> encoder.matches("c", "hash"));
+            assertEquals(config.getRetryAfter(), rejected.getRetryAfter());
+            assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            encoder.shutdown();
+        }
+    }
+}
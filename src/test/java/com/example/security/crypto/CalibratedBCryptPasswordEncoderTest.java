@@ -0,0 +1,36 @@
+package com.example.security.crypto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for cost detection and rehash decisions of CalibratedBCryptPasswordEncoder.
+ */
+class CalibratedBCryptPasswordEncoderTest {
+
+    @Test
+    void upgradesHashesOfAnyOtherCost() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void parsesCostFromHash() {
+        assertEquals(10, CalibratedBCryptPasswordEncoder.costOf("$2a$10$abcdefghijklmnopqrstuv"));
+        assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf("{bcrypt}$2a$10$abc"));
+        assertEquals(-1, CalibratedBCryptPasswordEncoder.costOf(""));
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        int strength = CalibratedBCryptPasswordEncoder.calibrate(1, 4, 6);
+
+        assertTrue(strength >= 4 && strength <= 6);
+    }
+}
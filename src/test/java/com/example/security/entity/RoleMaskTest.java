@@ -0,0 +1,52 @@
+package com.example.security.entity;
+
+import com.example.security.dto.UserPrincipal;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for role bitmasks and the shared per-combination authority lists.
+ */
+class RoleMaskTest {
+
+    @Test
+    void combinationsShareOneAuthorityList() {
+        int mask = RoleMask.of(Set.of("ADMIN", "USER"));
+        assertEquals(Role.USER.getMask() | Role.ADMIN.getMask(), mask);
+        assertEquals(List.of("USER", "ADMIN"), List.copyOf(RoleMask.names(mask)));
+        assertEquals("ROLE_ADMIN", RoleMask.authorities(mask).get(1).getAuthority());
+
+        User user = new User("alice", "x", "alice@example.com", Set.of("USER", "ADMIN"));
+        assertSame(RoleMask.authorities(mask), user.getAuthorities());
+        assertSame(user.getAuthorities(), UserPrincipal.from(user).getAuthorities());
+        assertSame(user.getAuthorities(),
+                new UserPrincipal("alice", "", List.of("ADMIN", "USER"), UserPrincipal.ENABLED).getAuthorities());
+        // the same role instance is shared across combinations too
+        assertSame(RoleMask.authorities(Role.ADMIN.getMask()).get(0), RoleMask.authorities(mask).get(1));
+    }
+
+    @Test
+    void unknownRolesAreRejectedOrKeptOutOfTheTable() {
+        assertThrows(IllegalArgumentException.class, () -> RoleMask.of(Set.of("ROOT")));
+        assertThrows(IllegalArgumentException.class, () -> RoleMask.names(1 << 30));
+        assertEquals(Role.MODERATOR.getMask(), RoleMask.of(Set.of(" moderator ")));
+
+        UserPrincipal foreign = new UserPrincipal("bob", "", List.of("USER", "AUDITOR"), UserPrincipal.ENABLED);
+        assertEquals(-1, foreign.getRoleMask());
+        assertEquals(Set.of("USER", "AUDITOR"), foreign.getRoles());
+    }
+
+    @Test
+    void roleChangesUpdateTheMask() {
+        User user = new User("carol", "x", "carol@example.com", Set.of("USER"));
+        user.addRole("MODERATOR");
+        assertTrue(user.hasRole("MODERATOR"));
+        user.removeRole("USER");
+        assertEquals(Set.of("MODERATOR"), user.getRoles());
+        assertEquals(Role.MODERATOR.getMask(), user.getRoleMask());
+    }
+}
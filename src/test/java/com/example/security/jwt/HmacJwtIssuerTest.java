@@ -0,0 +1,48 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import com.example.security.dto.UserPrincipal;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for template-minted tokens: jjwt must read them exactly like its own.
+ */
+class HmacJwtIssuerTest {
+
+    @Test
+    void mintedTokensParseWithJjwt() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("unit-test-secret-that-is-at-least-256-bits-long-for-hs256");
+        config.setStateless(true);
+        config.setFastVerify(false);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config);
+        UserPrincipal user = new UserPrincipal("ällice \"the\" admin\n", "", List.of("USER", "ADMIN"),
+                UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_LOCKED);
+
+        String access = jwtTokenUtil.generateAccessToken(user);
+        String refresh = jwtTokenUtil.generateRefreshToken(user, "fixed-jti");
+
+        Claims claims = jwtTokenUtil.extractAllClaims(access);
+        assertEquals(user.getUsername(), claims.getSubject());
+        assertEquals(config.getIssuer(), claims.getIssuer());
+        assertEquals(VerifiedToken.ACCESS, claims.get("type", String.class));
+        assertEquals(UserPrincipal.rolesOf(user), claims.get("roles", List.class));
+        assertEquals(UserPrincipal.flagsOf(user), claims.get("flags", Integer.class));
+        assertEquals(config.getAccessTokenExpiration() / 1000,
+                (claims.getExpiration().getTime() - claims.getIssuedAt().getTime()) / 1000);
+
+        // a renewed token carries the original login time
+        long authTime = 1_700_000_000_000L;
+        assertEquals(authTime, jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(user, authTime)).getAuthTime());
+
+        VerifiedToken verified = jwtTokenUtil.verify(refresh);
+        assertTrue(verified.isRefreshToken());
+        assertEquals("fixed-jti", verified.getId());
+        assertEquals(user.getUsername(), verified.getSubject());
+    }
+}
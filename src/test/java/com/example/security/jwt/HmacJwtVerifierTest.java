@@ -0,0 +1,94 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the HS256 fast path: same claims as jjwt, fallback for anything unusual.
+ */
+class HmacJwtVerifierTest {
+
+    private static final String SECRET = "unit-test-secret-that-is-at-least-256-bits-long-for-hs256";
+
+    private JwtConfig config;
+    private JwtTokenUtil jwtTokenUtil;
+    private HmacJwtVerifier verifier;
+
+    private final UserDetails user = User.withUsername("alice").password("ignored").roles("USER", "ADMIN").build();
+
+    @BeforeEach
+    void setUp() {
+        config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setStateless(true);
+        SigningKeyRing ring = new SigningKeyRing(config);
+        jwtTokenUtil = new JwtTokenUtil(config, ring);
+        verifier = new HmacJwtVerifier(ring);
+    }
+
+    @Test
+    void readsTheSameClaimsAsJjwt() {
+        for (String token : new String[] {
+                jwtTokenUtil.generateAccessToken(user),
+                jwtTokenUtil.generateRefreshToken(user),
+                jwtTokenUtil.generateToken("bob", "MODERATOR")}) {
+            VerifiedToken fast = verifier.verify(token);
+            VerifiedToken reference = VerifiedToken.from(jwtTokenUtil.extractAllClaims(token), null);
+
+            assertNotNull(fast);
+            assertEquals(reference.getId(), fast.getId());
+            assertEquals(reference.getSubject(), fast.getSubject());
+            assertEquals(reference.getType(), fast.getType());
+            assertEquals(reference.getRole(), fast.getRole());
+            assertEquals(reference.getRoles(), fast.getRoles());
+            assertEquals(reference.getFlags(), fast.getFlags());
+            assertEquals(reference.getIssuedAt(), fast.getIssuedAt());
+            assertEquals(reference.getExpiresAt(), fast.getExpiresAt());
+        }
+    }
+
+    @Test
+    void tamperedSignatureIsRejected() {
+        String token = jwtTokenUtil.generateAccessToken(user);
+        int dot = token.lastIndexOf('.');
+        char flipped = token.charAt(dot + 1) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, dot + 1) + flipped + token.substring(dot + 2);
+
+        assertThrows(SignatureException.class, () -> verifier.verify(tampered));
+    }
+
+    @Test
+    void unusualTokensFallBackToJjwt() {
+        byte[] secret = SECRET.getBytes(StandardCharsets.UTF_8);
+        long now = System.currentTimeMillis();
+
+        String withNotBefore = Jwts.builder().setSubject("alice")
+                .setNotBefore(new Date(now)).setExpiration(new Date(now + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret), SignatureAlgorithm.HS256).compact();
+        String expired = Jwts.builder().setSubject("alice")
+                .setExpiration(new Date(now - 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret), SignatureAlgorithm.HS256).compact();
+        String escaped = Jwts.builder().setSubject("al\"ice")
+                .setExpiration(new Date(now + 60_000))
+                .signWith(Keys.hmacShaKeyFor(secret), SignatureAlgorithm.HS256).compact();
+
+        assertNull(verifier.verify(withNotBefore));
+        assertNull(verifier.verify(expired));
+        assertNull(verifier.verify(escaped));
+        assertNull(verifier.verify("not.a.token"));
+        // and JwtTokenUtil still accepts what jjwt accepts
+        assertEquals("al\"ice", jwtTokenUtil.verify(escaped).getSubject());
+    }
+}
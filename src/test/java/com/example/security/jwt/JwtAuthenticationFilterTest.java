@@ -0,0 +1,180 @@
+package com.example.security.jwt;
+
+import com.example.security.authz.AuthorizationRules;
+import com.example.security.authz.PermitAllRoutes;
+import com.example.security.config.AuthorizationConfig;
+import com.example.security.config.JwtConfig;
+import com.example.security.config.UserCacheConfig;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.service.CustomUserDetailsService;
+import com.example.security.service.SingleFlight;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the JWT filter: only access tokens authenticate, and a user lookup that cannot
+ * be answered leaves the request unauthenticated, or skips renewal, instead of failing it.
+ */
+class JwtAuthenticationFilterTest {
+
+    private static final UserPrincipal ALICE = new UserPrincipal("alice", "{noop}x", List.of("USER"),
+            UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_EXPIRED
+                    | UserPrincipal.ACCOUNT_NON_LOCKED | UserPrincipal.CREDENTIALS_NON_EXPIRED);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtConfig jwtConfig = new JwtConfig();
+    private final JwtTokenUtil jwtTokenUtil;
+    private final SingleFlight<String, UserPrincipal> loads =
+            new SingleFlight<>("test.load", Duration.ofMillis(50), meterRegistry);
+
+    JwtAuthenticationFilterTest() {
+        jwtConfig.setSecret("a-test-secret-that-is-definitely-at-least-256-bits-long");
+        jwtTokenUtil = new JwtTokenUtil(jwtConfig, new SigningKeyRing(jwtConfig));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void authenticatesWithALoadedUser() throws Exception {
+        JwtAuthenticationFilter filter = filter(name -> ALICE);
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(jwtTokenUtil.generateAccessToken(ALICE)), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(ALICE, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+    }
+
+    @Test
+    void refreshTokenIsNotABearerToken() throws Exception {
+        JwtAuthenticationFilter filter = filter(name -> ALICE);
+
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request(jwtTokenUtil.generateRefreshToken(ALICE)), new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void timedOutLookupLeavesTheRequestUnauthenticated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // a slow load of the same user is already running; the filter's lookup joins it and times out
+            pool.submit(() -> loads.load("alice", key -> {
+                started.countDown();
+                awaitQuietly(release);
+                return ALICE;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            JwtAuthenticationFilter filter = filter(name -> loads.load(name, key -> ALICE));
+
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertDoesNotThrow(() -> filter.doFilter(request(jwtTokenUtil.generateAccessToken(ALICE)), response, chain));
+
+            assertNotNull(chain.getRequest(), "request was not passed on");
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+            assertEquals(200, response.getStatus());
+            assertEquals(1.0, meterRegistry.counter("test.load.timeouts").count());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void timedOutLookupDuringRenewalSkipsTheRenewal() throws Exception {
+        // stateless tokens are authenticated from their claims; only renewal reloads the user
+        jwtConfig.setStateless(true);
+        jwtConfig.getRenewal().setEnabled(true);
+        jwtConfig.getRenewal().setWindow(Duration.ofMinutes(2));
+        jwtConfig.setAccessTokenExpiration(Duration.ofMinutes(1).toMillis());
+        String token = jwtTokenUtil.generateAccessToken(ALICE, System.currentTimeMillis());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> loads.load("alice", key -> {
+                started.countDown();
+                awaitQuietly(release);
+                return ALICE;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            JwtAuthenticationFilter filter = filter(name -> loads.load(name, key -> ALICE));
+
+            MockFilterChain chain = new MockFilterChain();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            assertDoesNotThrow(() -> filter.doFilter(request(token), response, chain));
+
+            assertNotNull(chain.getRequest(), "request was not passed on");
+            assertEquals("alice", SecurityContextHolder.getContext().getAuthentication().getName());
+            assertNull(response.getHeader(jwtConfig.getRenewal().getHeader()));
+            assertEquals(1.0, meterRegistry.counter("test.load.timeouts").count());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    private JwtAuthenticationFilter filter(Function<String, UserPrincipal> loader) {
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(null, null,
+                new UserCacheConfig(), meterRegistry) {
+            @Override
+            public UserPrincipal loadUserByUsername(String username) {
+                return loader.apply(username);
+            }
+        };
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtTokenUtil", jwtTokenUtil);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenCache",
+                new TokenAuthenticationCache(jwtConfig, new SigningKeyRing(jwtConfig), meterRegistry));
+        ReflectionTestUtils.setField(filter, "jwtConfig", jwtConfig);
+        ReflectionTestUtils.setField(filter, "revocationService", new TokenRevocationService(jwtConfig, meterRegistry));
+        ReflectionTestUtils.setField(filter, "renewalService",
+                new TokenRenewalService(jwtTokenUtil, jwtConfig, userDetailsService, meterRegistry));
+        ReflectionTestUtils.setField(filter, "permitAllRoutes", new PermitAllRoutes(
+                new AuthorizationRules().anyRequest().authenticated().compile(),
+                new AuthorizationConfig(), meterRegistry));
+        return filter;
+    }
+
+    private static MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/private/hello");
+        request.setServletPath("/private/hello");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
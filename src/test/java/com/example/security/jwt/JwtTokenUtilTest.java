@@ -0,0 +1,91 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import com.example.security.dto.UserPrincipal;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for JwtTokenUtil token issuance and single-pass verification.
+ */
+class JwtTokenUtilTest {
+
+    private static final String SECRET = "unit-test-secret-that-is-at-least-256-bits-long-for-hs256";
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    private UserDetails user;
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        jwtTokenUtil = new JwtTokenUtil(config);
+        user = User.withUsername("alice").password("ignored").roles("USER").build();
+    }
+
+    @Test
+    void verifyReturnsClaimsOfAccessToken() {
+        String token = jwtTokenUtil.generateAccessToken(user);
+
+        VerifiedToken verified = jwtTokenUtil.verify(token);
+
+        assertEquals("alice", verified.getSubject());
+        assertTrue(verified.isAccessToken());
+        assertFalse(verified.isExpired(System.currentTimeMillis()));
+        assertTrue(jwtTokenUtil.validateToken(verified, user));
+    }
+
+    @Test
+    void refreshTokenIsOnlyAcceptedAsRefresh() {
+        String access = jwtTokenUtil.generateAccessToken(user);
+        String refresh = jwtTokenUtil.generateRefreshToken(user);
+
+        assertTrue(jwtTokenUtil.validateRefreshToken(refresh));
+        assertFalse(jwtTokenUtil.validateRefreshToken(access));
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = jwtTokenUtil.generateToken("alice", "ADMIN");
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+        assertEquals("ADMIN", jwtTokenUtil.extractRole(token));
+        assertThrows(JwtException.class, () -> jwtTokenUtil.verify(tampered));
+        assertFalse(jwtTokenUtil.validateToken(tampered));
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setAccessTokenExpiration(-1000);
+        String expired = new JwtTokenUtil(config).generateAccessToken(user);
+
+        assertFalse(jwtTokenUtil.validateToken(expired));
+    }
+
+    @Test
+    void statelessAccessTokenCarriesPrincipal() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setStateless(true);
+        JwtTokenUtil stateless = new JwtTokenUtil(config);
+
+        UserPrincipal principal = stateless.toPrincipal(stateless.verify(stateless.generateAccessToken(user)));
+
+        assertNotNull(principal);
+        assertEquals("alice", principal.getUsername());
+        assertEquals(user.getAuthorities().size(), principal.getAuthorities().size());
+        assertTrue(principal.isEnabled());
+        assertTrue(principal.isAccountNonLocked());
+        // refresh tokens and tokens without role claims never bypass the database
+        assertNull(stateless.toPrincipal(stateless.verify(stateless.generateRefreshToken(user))));
+        assertNull(jwtTokenUtil.toPrincipal(jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(user))));
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for kid-based key selection and rotation of the signing key ring.
+ */
+class SigningKeyRingTest {
+
+    private JwtConfig config;
+
+    private final UserDetails user = User.withUsername("alice").password("ignored").roles("USER").build();
+
+    @BeforeEach
+    void setUp() {
+        config = new JwtConfig();
+        config.setSecret("unit-test-secret-that-is-at-least-256-bits-long-for-hs256");
+        config.getSigning().setAlgorithm("RS256");
+    }
+
+    @Test
+    void rs256TokensCarryKidAndArePublished() {
+        SigningKeyRing ring = new SigningKeyRing(config);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config, ring);
+
+        String token = jwtTokenUtil.generateAccessToken(user);
+
+        assertEquals("alice", jwtTokenUtil.verify(token).getSubject());
+        String jwks = new String(ring.jwks(), StandardCharsets.UTF_8);
+        assertTrue(jwks.contains("\"kid\":\"" + ring.active().getKid() + "\""));
+        assertTrue(jwks.contains("\"kty\":\"RSA\""));
+    }
+
+    @Test
+    void rotatedKeysVerifyOnlyDuringTheOverlap() {
+        SigningKeyRing ring = new SigningKeyRing(config);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config, ring);
+        String firstKey = jwtTokenUtil.generateAccessToken(user);
+
+        ring.rotate();
+
+        assertEquals("alice", jwtTokenUtil.verify(firstKey).getSubject());
+        String secondKey = jwtTokenUtil.generateAccessToken(user);
+        assertEquals("alice", jwtTokenUtil.verify(secondKey).getSubject());
+
+        config.getSigning().setVerificationOverlap(Duration.ZERO);
+        ring.rotate();
+        assertEquals("alice", jwtTokenUtil.verify(firstKey).getSubject());
+        assertThrows(JwtException.class, () -> jwtTokenUtil.verify(secondKey));
+    }
+
+    @Test
+    void changedSecretFileIsPickedUpWithoutInvalidatingOldTokens(@TempDir Path dir) throws Exception {
+        Path secretFile = dir.resolve("jwt-secret");
+        Files.writeString(secretFile, "first-secret-that-is-at-least-256-bits-long-for-hs256\n");
+        config.getSigning().setAlgorithm("HS256");
+        config.setSecretFile(secretFile.toString());
+        SigningKeyRing ring = new SigningKeyRing(config);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config, ring);
+        String oldSecretToken = jwtTokenUtil.generateAccessToken(user);
+        String oldKid = ring.active().getKid();
+
+        Files.writeString(secretFile, "second-secret-that-is-at-least-256-bits-long-for-hs256");
+        Files.setLastModifiedTime(secretFile, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        ring.checkSecretFile();
+
+        assertNotEquals(oldKid, ring.active().getKid());
+        assertEquals("alice", jwtTokenUtil.verify(oldSecretToken).getSubject());
+        assertEquals("alice", jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(user)).getSubject());
+    }
+
+    @Test
+    void keyStoreKeyIsSharedAcrossInstancesAndReloadedWhenReplaced(@TempDir Path dir) throws Exception {
+        Path keyStore = dir.resolve("jwt-signing.p12");
+        generateKeyPair(keyStore, "first");
+        config.getSigning().setKeyStore(keyStore.toString());
+        config.getSigning().setKeyStorePassword("changeit");
+
+        // two nodes (or a restart) load the same key: tokens verify on either
+        SigningKeyRing node1 = new SigningKeyRing(config);
+        SigningKeyRing node2 = new SigningKeyRing(config);
+        assertEquals(node1.active().getKid(), node2.active().getKid());
+        String token = new JwtTokenUtil(config, node1).generateAccessToken(user);
+        JwtTokenUtil verifier = new JwtTokenUtil(config, node2);
+        assertEquals("alice", verifier.verify(token).getSubject());
+
+        // scheduled rotation leaves configured keys alone
+        String kid = node2.active().getKid();
+        node2.scheduledRotation();
+        assertEquals(kid, node2.active().getKid());
+
+        generateKeyPair(keyStore, "second");
+        Files.setLastModifiedTime(keyStore, FileTime.fromMillis(System.currentTimeMillis() + 1000));
+        node2.checkSecretFile();
+
+        assertNotEquals(kid, node2.active().getKid());
+        assertEquals("alice", verifier.verify(token).getSubject());
+    }
+
+    /**
+     * Replace the key store with a fresh RSA key pair under the given alias, using the JDK's keytool
+     */
+    private static void generateKeyPair(Path keyStore, String alias) throws Exception {
+        Files.deleteIfExists(keyStore);
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", alias, "-keyalg", "RSA", "-keysize", "2048", "-dname", "CN=jwt",
+                "-storetype", "PKCS12", "-keystore", keyStore.toString(), "-storepass", "changeit")
+                .redirectErrorStream(true)
+                .start();
+        keytool.getInputStream().transferTo(OutputStream.nullOutputStream());
+        assertEquals(0, keytool.waitFor());
+    }
+
+    @Test
+    void hmacSecretIsNeverPublished() {
+        config.getSigning().setAlgorithm("HS256");
+        SigningKeyRing ring = new SigningKeyRing(config);
+
+        assertEquals("{\"keys\":[]}", new String(ring.jwks(), StandardCharsets.UTF_8));
+    }
+}
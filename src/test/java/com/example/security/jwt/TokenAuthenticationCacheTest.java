@@ -0,0 +1,73 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the verified-token cache: hits stop as soon as the signing key is no longer trusted.
+ */
+class TokenAuthenticationCacheTest {
+
+    private final UserDetails user = User.withUsername("alice").password("ignored").roles("USER").build();
+
+    @Test
+    void hitsEndWhenTheSigningKeyIsDropped(@TempDir Path dir) throws Exception {
+        Path secretFile = dir.resolve("jwt-secret");
+        Files.writeString(secretFile, "first-secret-that-is-at-least-256-bits-long-for-hs256\n");
+        JwtConfig config = new JwtConfig();
+        config.setSecretFile(secretFile.toString());
+        config.getCache().setEnabled(true);
+        config.getSigning().setVerificationOverlap(Duration.ZERO);
+
+        SigningKeyRing ring = new SigningKeyRing(config);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config, ring);
+        TokenAuthenticationCache cache = new TokenAuthenticationCache(config, ring, new SimpleMeterRegistry());
+
+        String token = jwtTokenUtil.generateAccessToken(user);
+        VerifiedToken verified = jwtTokenUtil.verify(token);
+        assertEquals(ring.active().getKid(), verified.getKid());
+        cache.put(token, verified, user);
+        assertNotNull(cache.get(token));
+
+        Files.writeString(secretFile, "second-secret-that-is-at-least-256-bits-long-for-hs256\n");
+        ring.reload();
+
+        assertNull(cache.get(token));
+        assertThrows(Exception.class, () -> jwtTokenUtil.verify(token));
+    }
+
+    @Test
+    void hitsSurviveRotationWithinTheOverlap() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("unit-test-secret-that-is-at-least-256-bits-long-for-hs256");
+        config.getSigning().setAlgorithm("RS256");
+        config.getSigning().setKeySize(2048);
+        config.getCache().setEnabled(true);
+
+        SigningKeyRing ring = new SigningKeyRing(config);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config, ring);
+        TokenAuthenticationCache cache = new TokenAuthenticationCache(config, ring, new SimpleMeterRegistry());
+
+        String first = jwtTokenUtil.generateAccessToken(user);
+        cache.put(first, jwtTokenUtil.verify(first), user);
+        ring.rotate();
+        assertNotNull(cache.get(first));
+
+        String second = jwtTokenUtil.generateAccessToken(user);
+        cache.put(second, jwtTokenUtil.verify(second), user);
+        config.getSigning().setVerificationOverlap(Duration.ZERO);
+        ring.rotate(); // retires the key the second token was signed with, without overlap
+        assertNull(cache.get(second));
+        assertNotNull(cache.get(first));
+    }
+}
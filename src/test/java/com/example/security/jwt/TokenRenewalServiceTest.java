@@ -0,0 +1,154 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import com.example.security.dto.UserPrincipal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for sliding access-token renewal: only near expiry, only once per token, never
+ * past the session cap and never with stale stateless claims.
+ */
+class TokenRenewalServiceTest {
+
+    private static final UserPrincipal USER = new UserPrincipal("alice", "", List.of("USER"),
+            UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_LOCKED);
+
+    private final Map<String, UserPrincipal> users = new ConcurrentHashMap<>(Map.of("alice", USER));
+
+    private final UserDetailsService userDetailsService = username -> {
+        UserPrincipal user = users.get(username);
+        if (user == null) {
+            throw new UsernameNotFoundException(username);
+        }
+        return user;
+    };
+
+    @Test
+    void renewsOnlyWithinWindow() {
+        JwtConfig config = config(Duration.ofMinutes(2));
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config);
+        TokenRenewalService renewal = new TokenRenewalService(jwtTokenUtil, config, userDetailsService, new SimpleMeterRegistry());
+
+        config.setAccessTokenExpiration(Duration.ofMinutes(15).toMillis());
+        VerifiedToken fresh = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER));
+        assertNull(renewal.renew(fresh, USER));
+
+        config.setAccessTokenExpiration(Duration.ofMinutes(1).toMillis());
+        VerifiedToken expiring = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER));
+        String renewed = renewal.renew(expiring, USER);
+        assertNotNull(renewed);
+        VerifiedToken replacement = jwtTokenUtil.verify(renewed);
+        assertEquals("alice", replacement.getSubject());
+        assertNotEquals(expiring.getId(), replacement.getId());
+        assertEquals(expiring.getAuthTime(), replacement.getAuthTime());
+
+        VerifiedToken refresh = jwtTokenUtil.verify(jwtTokenUtil.generateRefreshToken(USER, "r1"));
+        assertNull(renewal.renew(refresh, USER));
+    }
+
+    @Test
+    void concurrentRequestsShareOneRenewal() throws Exception {
+        JwtConfig config = config(Duration.ofMinutes(2));
+        config.setAccessTokenExpiration(Duration.ofMinutes(1).toMillis());
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenRenewalService renewal = new TokenRenewalService(jwtTokenUtil, config, userDetailsService, registry);
+        VerifiedToken expiring = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER));
+
+        int threads = 8;
+        Set<String> results = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    results.add(renewal.renew(expiring, USER));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, results.size());
+        assertEquals(1.0, registry.counter("jwt.renewal.issued").count());
+        assertEquals(threads - 1, registry.counter("jwt.renewal.reused").count());
+    }
+
+    @Test
+    void noRenewalPastTheMaximumSessionAge() {
+        JwtConfig config = config(Duration.ofMinutes(2));
+        config.setAccessTokenExpiration(Duration.ofMinutes(1).toMillis());
+        config.getRenewal().setMaxSessionAge(Duration.ofHours(1));
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TokenRenewalService renewal = new TokenRenewalService(jwtTokenUtil, config, userDetailsService, registry);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken recentLogin = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER, now - Duration.ofMinutes(30).toMillis()));
+        assertNotNull(renewal.renew(recentLogin, USER));
+
+        // the replacement would outlive login + max-session-age
+        VerifiedToken oldLogin = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER, now - Duration.ofMinutes(59).toMillis()));
+        assertNull(renewal.renew(oldLogin, USER));
+        assertNull(renewal.reissue(oldLogin, USER));
+
+        // tokens without auth_time cannot be bounded and are not renewed
+        VerifiedToken legacy = new VerifiedToken("legacy", "alice", VerifiedToken.ACCESS, null, null, -1,
+                now, now + 30_000, null);
+        assertNull(renewal.renew(legacy, USER));
+        assertEquals(3.0, registry.counter("jwt.renewal.refused", "reason", "session_age").count());
+    }
+
+    @Test
+    void statelessRenewalReloadsTheUser() {
+        JwtConfig config = config(Duration.ofMinutes(2));
+        config.setAccessTokenExpiration(Duration.ofMinutes(1).toMillis());
+        config.setStateless(true);
+        JwtTokenUtil jwtTokenUtil = new JwtTokenUtil(config);
+        TokenRenewalService renewal = new TokenRenewalService(jwtTokenUtil, config, userDetailsService, new SimpleMeterRegistry());
+        VerifiedToken token = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER));
+        UserPrincipal fromClaims = jwtTokenUtil.toPrincipal(token);
+
+        // promoted since the token was minted: the replacement carries the current roles
+        users.put("alice", new UserPrincipal("alice", "", List.of("USER", "ADMIN"),
+                UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_LOCKED | UserPrincipal.ACCOUNT_NON_EXPIRED));
+        VerifiedToken replacement = jwtTokenUtil.verify(renewal.renew(token, fromClaims));
+        assertEquals(List.of("USER", "ADMIN"), replacement.getRoles());
+
+        // locked since: no replacement, even though the token still claims an unlocked account
+        users.put("alice", new UserPrincipal("alice", "", List.of("USER"),
+                UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_EXPIRED));
+        VerifiedToken next = jwtTokenUtil.verify(jwtTokenUtil.generateAccessToken(USER));
+        assertNull(renewal.renew(next, jwtTokenUtil.toPrincipal(next)));
+
+        users.remove("alice");
+        assertNull(renewal.reissue(next, jwtTokenUtil.toPrincipal(next)));
+    }
+
+    private static JwtConfig config(Duration window) {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("unit-test-secret-that-is-at-least-256-bits-long-for-hs256");
+        config.getRenewal().setEnabled(true);
+        config.getRenewal().setWindow(window);
+        return config;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.security.jwt;
+
+import com.example.security.config.JwtConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the jti denylist and its Bloom filter fast path.
+ */
+class TokenRevocationServiceTest {
+
+    private final TokenRevocationService service = new TokenRevocationService(new JwtConfig(), new SimpleMeterRegistry());
+
+    private static VerifiedToken token(String id, long expiresAt) {
+        return new VerifiedToken(id, "alice", VerifiedToken.ACCESS, "USER", null, -1, 0L, expiresAt);
+    }
+
+    @Test
+    void revokedTokensAreRejectedOthersAreNot() {
+        long later = System.currentTimeMillis() + 60_000;
+        service.revoke(token("jti-1", later));
+
+        assertTrue(service.isRevoked(token("jti-1", later)));
+        assertFalse(service.isRevoked(token("jti-2", later)));
+        assertFalse(service.isRevoked(token(null, later)));
+    }
+
+    @Test
+    void purgeDropsExpiredEntriesAndKeepsLiveOnes() throws InterruptedException {
+        long now = System.currentTimeMillis();
+        service.revoke(token("short", now + 50));
+        service.revoke(token("long", now + 60_000));
+        assertEquals(2, service.size());
+
+        Thread.sleep(100);
+        service.purgeExpired();
+
+        assertEquals(1, service.size());
+        assertTrue(service.isRevoked(token("long", now + 60_000)));
+        assertFalse(service.isRevoked(token("short", now + 50)));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("id-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("id-" + i));
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 50, "false positives: " + falsePositives);
+    }
+}
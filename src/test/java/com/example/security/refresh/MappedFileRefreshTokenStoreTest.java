@@ -0,0 +1,99 @@
+package com.example.security.refresh;
+
+import com.example.security.config.RefreshTokenConfig;
+import com.example.security.entity.RefreshToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the memory-mapped refresh token log: replay, torn tails, compaction and growth.
+ */
+class MappedFileRefreshTokenStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private RefreshTokenConfig config(long fileSize) {
+        RefreshTokenConfig config = new RefreshTokenConfig();
+        config.setFile(dir.resolve("refresh-tokens.log").toString());
+        config.setFileSize(DataSize.ofBytes(fileSize));
+        return config;
+    }
+
+    private static RefreshToken token(String id, String family, String user, long expiresAt) {
+        return new RefreshToken(id, family, user, expiresAt);
+    }
+
+    @Test
+    void recordsAndStatusChangesSurviveRestart() throws Exception {
+        long later = System.currentTimeMillis() + 60_000;
+        MappedFileRefreshTokenStore store = new MappedFileRefreshTokenStore(config(1 << 16));
+        store.save(token("a1", "fa", "alice", later));
+        store.save(token("a2", "fa", "alice", later));
+        store.save(token("b1", "fb", "bob", later));
+        assertTrue(store.consume("a1"));
+        assertFalse(store.consume("a1"));
+        store.revokeUser("bob");
+        store.close();
+
+        MappedFileRefreshTokenStore reopened = new MappedFileRefreshTokenStore(config(1 << 16));
+        assertEquals(RefreshToken.Status.CONSUMED, reopened.find("a1").getStatus());
+        assertTrue(reopened.find("a2").isActive());
+        assertEquals(RefreshToken.Status.REVOKED, reopened.find("b1").getStatus());
+
+        reopened.revokeFamily("fa");
+        assertFalse(reopened.consume("a2"));
+        reopened.close();
+    }
+
+    @Test
+    void tornTailIsDiscarded() throws Exception {
+        long later = System.currentTimeMillis() + 60_000;
+        MappedFileRefreshTokenStore store = new MappedFileRefreshTokenStore(config(1 << 16));
+        store.save(token("a1", "fa", "alice", later));
+        int end = store.logSize();
+        store.save(token("a2", "fa", "alice", later));
+        store.close();
+
+        // corrupt the payload of the last entry, as a crash mid-write would
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("refresh-tokens.log").toFile(), "rw")) {
+            file.seek(end + 12);
+            file.write(0x7f);
+        }
+
+        MappedFileRefreshTokenStore reopened = new MappedFileRefreshTokenStore(config(1 << 16));
+        assertNotNull(reopened.find("a1"));
+        assertNull(reopened.find("a2"));
+        reopened.save(token("a3", "fa", "alice", later));
+        reopened.close();
+        assertNotNull(new MappedFileRefreshTokenStore(config(1 << 16)).find("a3"));
+    }
+
+    @Test
+    void compactionDropsExpiredRecordsAndTheLogGrowsWhenFull() throws Exception {
+        long now = System.currentTimeMillis();
+        MappedFileRefreshTokenStore store = new MappedFileRefreshTokenStore(config(4096));
+        for (int i = 0; i < 200; i++) {
+            // more than 4 KB of entries: forces compaction and then a larger mapping
+            store.save(token("live-" + i, "f" + i, "alice", now + 60_000));
+            store.save(token("dead-" + i, "f" + i, "alice", now - 1));
+        }
+        int before = store.logSize();
+        assertEquals(200, store.purgeExpired(now));
+        assertTrue(store.logSize() < before);
+        store.close();
+
+        MappedFileRefreshTokenStore reopened = new MappedFileRefreshTokenStore(config(4096));
+        assertNotNull(reopened.find("live-199"));
+        assertNull(reopened.find("dead-0"));
+        reopened.revokeUser("alice");
+        assertEquals(RefreshToken.Status.REVOKED, reopened.find("live-0").getStatus());
+        reopened.close();
+    }
+}
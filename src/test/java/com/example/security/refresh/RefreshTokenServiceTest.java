@@ -0,0 +1,121 @@
+package com.example.security.refresh;
+
+import com.example.security.config.JwtConfig;
+import com.example.security.config.RefreshTokenConfig;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.entity.RefreshToken;
+import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.jwt.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for refresh token rotation and reuse detection, on the in-memory store.
+ */
+class RefreshTokenServiceTest {
+
+    private JwtTokenUtil jwtTokenUtil;
+    private RefreshTokenService service;
+    private final UserPrincipal user = new UserPrincipal("alice", "{noop}x", List.of("USER"),
+            UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_EXPIRED
+                    | UserPrincipal.ACCOUNT_NON_LOCKED | UserPrincipal.CREDENTIALS_NON_EXPIRED);
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig config = new JwtConfig();
+        config.setSecret("a-test-secret-that-is-definitely-at-least-256-bits-long");
+        jwtTokenUtil = new JwtTokenUtil(config);
+        service = new RefreshTokenService(new InMemoryRefreshTokenStore(), jwtTokenUtil, config,
+                new RefreshTokenConfig(), new SimpleMeterRegistry());
+    }
+
+    private VerifiedToken refresh(Map<String, String> pair) {
+        return jwtTokenUtil.verify(pair.get("refreshToken"));
+    }
+
+    @Test
+    void rotationConsumesTheOldToken() {
+        Map<String, String> first = service.generateTokenPair(user);
+        Map<String, String> second = service.rotate(refresh(first), user);
+
+        assertNotEquals(first.get("refreshToken"), second.get("refreshToken"));
+        assertNotNull(service.rotate(refresh(second), user));
+    }
+
+    @Test
+    void reuseRevokesTheWholeFamily() {
+        Map<String, String> first = service.generateTokenPair(user);
+        Map<String, String> second = service.rotate(refresh(first), user);
+
+        assertThrows(RefreshTokenReuseException.class, () -> service.rotate(refresh(first), user));
+        // the legitimate successor is gone as well
+        assertThrows(RefreshTokenReuseException.class, () -> service.rotate(refresh(second), user));
+    }
+
+    @Test
+    void revokingAFamilyStopsItsRefreshTokens() {
+        Map<String, String> first = service.generateTokenPair(user);
+        Map<String, String> second = service.rotate(refresh(first), user);
+        Map<String, String> other = service.generateTokenPair(user);
+
+        service.revokeFamily(refresh(first));
+
+        assertThrows(RefreshTokenReuseException.class, () -> service.rotate(refresh(second), user));
+        // other logins of the same user are unaffected
+        assertNotNull(service.rotate(refresh(other), user));
+    }
+
+    @Test
+    void unknownTokensAreRejected() {
+        VerifiedToken unrecorded = jwtTokenUtil.verify(jwtTokenUtil.generateRefreshToken(user));
+        assertThrows(RuntimeException.class, () -> service.rotate(unrecorded, user));
+    }
+
+    @Test
+    void opaqueHandlesRotateWithoutParsing() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret("a-test-secret-that-is-definitely-at-least-256-bits-long");
+        RefreshTokenConfig config = new RefreshTokenConfig();
+        config.setFormat("opaque");
+        InMemoryRefreshTokenStore store = new InMemoryRefreshTokenStore();
+        RefreshTokenService opaque = new RefreshTokenService(store,
+                new JwtTokenUtil(jwtConfig), jwtConfig, config, new SimpleMeterRegistry());
+
+        String first = opaque.generateTokenPair(user).get("refreshToken");
+        assertTrue(RefreshTokenService.isHandle(first));
+        assertEquals(32, first.length());
+        // only a hash of the handle is stored, and the hash itself is no handle
+        assertNull(store.find(first));
+        String storedId = RefreshTokenService.handleId(first);
+        assertEquals(36, storedId.length());
+        assertNotNull(store.find(storedId));
+        assertThrows(RuntimeException.class, () -> opaque.resolve(storedId));
+
+        String second = opaque.rotate(opaque.resolve(first), user).get("refreshToken");
+        assertTrue(RefreshTokenService.isHandle(second));
+        assertThrows(RefreshTokenReuseException.class, () -> opaque.rotate(opaque.resolve(first), user));
+        assertThrows(RuntimeException.class, () -> opaque.resolve("no-such-handle"));
+    }
+
+    @Test
+    void handlesStoredBeforeHashingStillResolve() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret("a-test-secret-that-is-definitely-at-least-256-bits-long");
+        RefreshTokenConfig config = new RefreshTokenConfig();
+        config.setFormat("opaque");
+        InMemoryRefreshTokenStore store = new InMemoryRefreshTokenStore();
+        RefreshTokenService opaque = new RefreshTokenService(store,
+                new JwtTokenUtil(jwtConfig), jwtConfig, config, new SimpleMeterRegistry());
+        String legacy = "AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+        store.save(new RefreshToken(legacy, "family", "alice", System.currentTimeMillis() + 60_000));
+
+        String next = opaque.rotate(opaque.resolve(legacy), user).get("refreshToken");
+        assertNotNull(store.find(RefreshTokenService.handleId(next)));
+    }
+}
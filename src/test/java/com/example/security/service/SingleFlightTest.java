@@ -0,0 +1,104 @@
+package com.example.security.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for load coalescing: one loader run per key while callers overlap.
+ */
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<String, String> flight = new SingleFlight<>("test.load", Duration.ofSeconds(10), registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        int waiters = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(waiters + 1);
+        try {
+            Future<String> leader = pool.submit(() -> flight.load("svc", key -> {
+                loads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return key + "-loaded";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<String>> joined = new ArrayList<>();
+            for (int i = 0; i < waiters; i++) {
+                joined.add(pool.submit(() -> flight.load("svc", key -> {
+                    loads.incrementAndGet();
+                    return "second-load";
+                })));
+            }
+            // every waiter has to be parked on the leader's future before it finishes
+            while (registry.counter("test.load.coalesced").count() < waiters) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("svc-loaded", leader.get(5, TimeUnit.SECONDS));
+            for (Future<String> result : joined) {
+                assertEquals("svc-loaded", result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1.0, registry.counter("test.load.executed").count());
+
+            // nothing is cached: the next call loads again
+            assertEquals("again", flight.load("svc", key -> "again"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void waitersGiveUpAfterTheTimeout() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SingleFlight<String, String> flight = new SingleFlight<>("test.load", Duration.ofMillis(50), registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> leader = pool.submit(() -> flight.load("slow", key -> {
+                started.countDown();
+                await(release);
+                throw new IllegalArgumentException("backend down");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(AuthenticationServiceException.class, () -> flight.load("slow", key -> "unused"));
+            assertEquals(1.0, registry.counter("test.load.timeouts").count());
+
+            release.countDown();
+            Exception failure = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
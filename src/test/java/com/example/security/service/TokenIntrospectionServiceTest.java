@@ -0,0 +1,176 @@
+package com.example.security.service;
+
+import com.example.security.config.IntrospectionConfig;
+import com.example.security.config.JwtConfig;
+import com.example.security.config.UserCacheConfig;
+import com.example.security.dto.TokenIntrospection;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.jwt.JwtTokenUtil;
+import com.example.security.jwt.SigningKeyRing;
+import com.example.security.jwt.TokenAuthenticationCache;
+import com.example.security.jwt.TokenRevocationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for batch token introspection: every token answered once under its own index,
+ * inactive tokens reported as such, and oversized batches handled by the calling thread.
+ */
+class TokenIntrospectionServiceTest {
+
+    private static final int ACTIVE = UserPrincipal.ENABLED | UserPrincipal.ACCOUNT_NON_EXPIRED
+            | UserPrincipal.ACCOUNT_NON_LOCKED | UserPrincipal.CREDENTIALS_NON_EXPIRED;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtConfig jwtConfig = new JwtConfig();
+    private final JwtTokenUtil jwtTokenUtil;
+    private final TokenRevocationService revocationService;
+    private final Map<String, UserPrincipal> users = new ConcurrentHashMap<>();
+    private final List<TokenIntrospectionService> services = new ArrayList<>();
+
+    TokenIntrospectionServiceTest() {
+        jwtConfig.setSecret("a-test-secret-that-is-definitely-at-least-256-bits-long");
+        jwtTokenUtil = new JwtTokenUtil(jwtConfig, new SigningKeyRing(jwtConfig));
+        revocationService = new TokenRevocationService(jwtConfig, meterRegistry);
+        for (String name : List.of("alice", "bob", "carol")) {
+            users.put(name, new UserPrincipal(name, "{noop}x", List.of("USER"), ACTIVE));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(TokenIntrospectionService::shutdown);
+    }
+
+    @Test
+    void everyTokenIsAnsweredOnceUnderItsIndex() throws Exception {
+        TokenIntrospectionService service = service(4, 1024, name -> users.get(name));
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            tokens.add(accessToken(List.of("alice", "bob", "carol").get(i % 3)));
+        }
+
+        List<TokenIntrospection> results = introspectAll(service, tokens);
+
+        assertEquals(tokens.size(), results.size());
+        TokenIntrospection[] byIndex = new TokenIntrospection[tokens.size()];
+        for (TokenIntrospection result : results) {
+            assertNull(byIndex[result.getIndex()], "index answered twice: " + result.getIndex());
+            byIndex[result.getIndex()] = result;
+        }
+        for (int i = 0; i < byIndex.length; i++) {
+            assertTrue(byIndex[i].isActive());
+            assertEquals(jwtTokenUtil.verify(tokens.get(i)).getSubject(), byIndex[i].getSub());
+            assertEquals(List.of("USER"), byIndex[i].getRoles());
+        }
+    }
+
+    @Test
+    void inactiveTokens() throws Exception {
+        users.put("locked", new UserPrincipal("locked", "{noop}x", List.of("USER"),
+                ACTIVE & ~UserPrincipal.ACCOUNT_NON_LOCKED));
+        TokenIntrospectionService service = service(2, 1024, name -> users.get(name));
+        String revoked = accessToken("bob");
+        revocationService.revoke(jwtTokenUtil.verify(revoked));
+
+        List<String> tokens = List.of(
+                accessToken("alice"),
+                jwtTokenUtil.generateRefreshToken(users.get("alice")),
+                revoked,
+                accessToken("locked"),
+                accessToken("nobody"),
+                "not-a-token",
+                "");
+
+        TokenIntrospection[] byIndex = new TokenIntrospection[tokens.size()];
+        for (TokenIntrospection result : introspectAll(service, tokens)) {
+            byIndex[result.getIndex()] = result;
+        }
+
+        assertTrue(byIndex[0].isActive());
+        for (int i = 1; i < byIndex.length; i++) {
+            assertFalse(byIndex[i].isActive(), "token " + i + " should be inactive");
+            assertNull(byIndex[i].getSub());
+        }
+    }
+
+    @Test
+    void fullQueueIsWorkedOffByTheCallingThread() throws Exception {
+        Thread caller = Thread.currentThread();
+        CountDownLatch callerHelped = new CountDownLatch(1);
+        // one worker, one queue slot: the first token occupies the worker, the second waits in
+        // the queue, the third can only run on the calling thread - which then unblocks the worker
+        TokenIntrospectionService service = service(1, 1, name -> {
+            if (Thread.currentThread() == caller) {
+                callerHelped.countDown();
+            } else {
+                awaitQuietly(callerHelped);
+            }
+            return users.get(name);
+        });
+
+        List<TokenIntrospection> results = introspectAll(service,
+                List.of(accessToken("alice"), accessToken("bob"), accessToken("carol")));
+
+        assertEquals(0, callerHelped.getCount(), "calling thread never introspected a token");
+        assertEquals(3, results.size());
+        assertTrue(results.stream().allMatch(TokenIntrospection::isActive));
+    }
+
+    private TokenIntrospectionService service(int poolSize, int queueCapacity,
+                                              Function<String, UserPrincipal> loader) {
+        IntrospectionConfig config = new IntrospectionConfig();
+        config.setPoolSize(poolSize);
+        config.setQueueCapacity(queueCapacity);
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(null, null,
+                new UserCacheConfig(), meterRegistry) {
+            @Override
+            public UserPrincipal loadUserByUsername(String username) {
+                UserPrincipal user = loader.apply(username);
+                if (user == null) {
+                    throw new UsernameNotFoundException(username);
+                }
+                return user;
+            }
+        };
+        TokenIntrospectionService service = new TokenIntrospectionService(jwtTokenUtil, jwtConfig,
+                new TokenAuthenticationCache(jwtConfig, new SigningKeyRing(jwtConfig), meterRegistry),
+                revocationService, userDetailsService, config, meterRegistry);
+        services.add(service);
+        return service;
+    }
+
+    private String accessToken(String username) {
+        UserPrincipal user = users.getOrDefault(username,
+                new UserPrincipal(username, "{noop}x", List.of("USER"), ACTIVE));
+        return jwtTokenUtil.generateAccessToken(user);
+    }
+
+    private static List<TokenIntrospection> introspectAll(TokenIntrospectionService service, List<String> tokens)
+            throws InterruptedException {
+        List<TokenIntrospection> results = new ArrayList<>();
+        service.introspectAll(tokens, results::add);
+        return results;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
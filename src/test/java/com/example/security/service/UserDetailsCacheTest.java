@@ -0,0 +1,60 @@
+package com.example.security.service;
+
+import com.example.security.config.UserCacheConfig;
+import com.example.security.dto.UserPrincipal;
+import com.example.security.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the negative cache of unknown usernames and emails.
+ */
+class UserDetailsCacheTest {
+
+    @Test
+    void unknownUsernamesSkipTheLoaderUntilEvicted() {
+        UserDetailsCache cache = new UserDetailsCache(new UserCacheConfig(), new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        UserPrincipal[] stored = new UserPrincipal[1];
+        Function<String, UserPrincipal> loader = name -> {
+            loads.incrementAndGet();
+            return stored[0];
+        };
+
+        assertNull(cache.getByUsername("mallory", loader));
+        assertNull(cache.getByUsername("mallory", loader));
+        assertEquals(1, loads.get());
+
+        // registering the name must make it visible immediately
+        stored[0] = new UserPrincipal("mallory", "", List.of("USER"), UserPrincipal.ENABLED);
+        User user = new User();
+        user.setUsername("mallory");
+        cache.evict(user);
+        assertNotNull(cache.getByUsername("mallory", loader));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void negativeCachingWorksWithoutTheSnapshotCache() {
+        UserCacheConfig config = new UserCacheConfig();
+        config.setEnabled(false);
+        UserDetailsCache cache = new UserDetailsCache(config, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.getByEmail("nobody@example.com", email -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.getByEmail("nobody@example.com", email -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.security.throttle;
+
+import com.example.security.config.LoginThrottleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for login throttling and its temporary lock.
+ */
+class LoginAttemptLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(60_000);
+
+    private LoginAttemptLimiter limiter(Duration lockDuration) {
+        LoginThrottleConfig config = new LoginThrottleConfig();
+        config.setWindow(Duration.ofSeconds(1));
+        config.setMaxFailuresPerUsername(3);
+        config.setMaxFailuresPerIp(100);
+        config.setLockThreshold(5);
+        config.setLockDuration(lockDuration);
+        config.setSlots(1024);
+        return new LoginAttemptLimiter(config, new SimpleMeterRegistry(), now::get);
+    }
+
+    @Test
+    void throttlesAnIdentifierOverItsLimit() {
+        LoginAttemptLimiter limiter = limiter(Duration.ofSeconds(10));
+        for (int i = 0; i < 3; i++) {
+            limiter.checkAllowed("alice", "10.0.0.1");
+            limiter.recordFailure("alice", "10.0.0.1");
+        }
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> limiter.checkAllowed("alice", "10.0.0.1"));
+        assertTrue(e.getMessage().contains("this account"));
+        assertDoesNotThrow(() -> limiter.checkAllowed("bob", "10.0.0.1"));
+    }
+
+    @Test
+    void lockReachedByFailingOnExpiresAfterLockDuration() {
+        LoginAttemptLimiter limiter = limiter(Duration.ofSeconds(10));
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("alice", "10.0.0.1");
+        }
+        // throttled attempts keep counting until the lock threshold
+        for (int i = 0; i < 2; i++) {
+            assertThrows(LoginThrottledException.class, () -> limiter.checkAllowed("alice", "10.0.0.1"));
+        }
+
+        LoginThrottledException locked = assertThrows(LoginThrottledException.class,
+                () -> limiter.checkAllowed("alice", "10.0.0.1"));
+        assertTrue(locked.getMessage().contains("temporarily locked"));
+        assertEquals(Duration.ofSeconds(10), locked.getRetryAfter());
+
+        now.addAndGet(4_000);          // failure window long gone, lock still running
+        locked = assertThrows(LoginThrottledException.class, () -> limiter.checkAllowed("alice", "10.0.0.1"));
+        assertEquals(Duration.ofSeconds(6), locked.getRetryAfter());
+
+        now.addAndGet(6_000);          // lock expired on its own
+        assertDoesNotThrow(() -> limiter.checkAllowed("alice", "10.0.0.1"));
+    }
+
+    @Test
+    void lockDurationDefaultsToTheWindow() {
+        LoginAttemptLimiter limiter = limiter(null);
+        for (int i = 0; i < 5; i++) {
+            limiter.recordFailure("alice", "10.0.0.1");
+        }
+
+        LoginThrottledException locked = assertThrows(LoginThrottledException.class,
+                () -> limiter.checkAllowed("alice", "10.0.0.1"));
+        assertEquals(Duration.ofSeconds(1), locked.getRetryAfter());
+    }
+
+    @Test
+    void unlockLiftsTheLockAndForgivesEarlierFailures() {
+        LoginAttemptLimiter limiter = limiter(Duration.ofSeconds(10));
+        for (int i = 0; i < 5; i++) {
+            limiter.recordFailure("alice", "10.0.0.1");
+        }
+        assertThrows(LoginThrottledException.class, () -> limiter.checkAllowed("alice", "10.0.0.1"));
+
+        limiter.unlock("alice");
+        assertDoesNotThrow(() -> limiter.checkAllowed("alice", "10.0.0.1"));
+
+        // counting starts over: the per-account limit applies again, not an immediate relock
+        for (int i = 0; i < 3; i++) {
+            limiter.recordFailure("alice", "10.0.0.1");
+        }
+        LoginThrottledException throttled = assertThrows(LoginThrottledException.class,
+                () -> limiter.checkAllowed("alice", "10.0.0.1"));
+        assertTrue(throttled.getMessage().contains("this account"));
+    }
+}
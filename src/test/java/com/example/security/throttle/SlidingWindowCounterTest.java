@@ -0,0 +1,50 @@
+package com.example.security.throttle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the lock-free sliding window counter.
+ */
+class SlidingWindowCounterTest {
+
+    private final AtomicLong now = new AtomicLong(60_000);
+
+    private final SlidingWindowCounter counter = new SlidingWindowCounter(1024, 1000, now::get);
+
+    @Test
+    void countsEventsPerKey() {
+        for (int i = 1; i <= 5; i++) {
+            assertEquals(i, counter.increment("alice"));
+        }
+        assertEquals(5, counter.estimate("alice"));
+        assertEquals(0, counter.estimate("bob"));
+    }
+
+    @Test
+    void previousWindowDecaysAcrossTheCurrentOne() {
+        for (int i = 0; i < 10; i++) {
+            counter.increment("alice");
+        }
+
+        now.addAndGet(1000);          // start of the next window: previous still fully weighted
+        assertEquals(10, counter.estimate("alice"));
+
+        now.addAndGet(500);           // half way: previous counts half
+        assertEquals(5, counter.estimate("alice"));
+        assertEquals(6, counter.increment("alice"));
+
+        now.addAndGet(2000);          // two windows later everything is gone
+        assertEquals(0, counter.estimate("alice"));
+    }
+
+    @Test
+    void reportsTimeUntilNextWindow() {
+        now.set(60_250);
+
+        assertEquals(750, counter.millisUntilNextWindow());
+    }
+}